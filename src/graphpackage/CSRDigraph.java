@@ -0,0 +1,403 @@
+package graphpackage;
+import java.util.NoSuchElementException;
+
+import helpermethods.In;
+
+/**
+ *  The {@code CSRDigraph} class represents an immutable edge-weighted
+ *  digraph of vertices named 0 through <em>V</em> - 1 stored in
+ *  <em>compressed sparse row</em> form.
+ *  <p>
+ *  The edges leaving vertex {@code v} occupy the index range
+ *  [{@link #begin(int)}, {@link #end(int)}) of three flat arrays that hold
+ *  the tail, the head and the capacity of every edge. Iterating over the
+ *  edges of a vertex therefore walks a contiguous block of memory instead of
+ *  following the linked nodes of a {@link helpermethods.Bag}, and no
+ *  {@link DirectedEdge} objects are created.
+ *  <p>
+ *  The edges of every vertex are kept in the same order as in the
+ *  {@link EdgeWeightedDigraph} (or input stream) that the digraph was built from.
+ *  It uses &Theta;(<em>E</em> + <em>V</em>) space and all instance methods
+ *  take &Theta;(1) time.
+ */
+public class CSRDigraph {
+    private static String NEWLINE = System.getProperty("line.separator");
+
+    private final int V;                 // number of vertices in this digraph
+    private final int E;                 // number of edges in this digraph
+    private final int[] offsets;         // edges of v are offsets[v] .. offsets[v+1]-1
+    private final int[] sources;         // sources[i] = tail of edge i
+    private final int[] targets;         // targets[i] = head of edge i
+    private final double[] capacities;   // capacities[i] = weight of edge i
+    private final int[] indegree;        // indegree[v] = indegree of vertex v
+    private final double[] weightedInDegree;  // weightedInDegree[v] = total weight of incoming edges of vertex v
+    private volatile int[] inOffsets;    // incoming edges of v are inEdges[inOffsets[v]] .. inEdges[inOffsets[v+1]-1]
+    private int[] inEdges;               // edge indices grouped by head vertex, built on first use (published by inOffsets)
+    public VertexSet contractedVertices;    // vertices contracted to root, same meaning as in EdgeWeightedDigraph
+
+    /**
+     * Initializes a digraph in CSR form from the specified input stream.
+     * The format is the same as for {@link EdgeWeightedDigraph#EdgeWeightedDigraph(In)}.
+     *
+     * @param  in the input stream
+     * @throws IllegalArgumentException if {@code in} is {@code null}
+     * @throws IllegalArgumentException if the endpoints of any edge are not in prescribed range
+     * @throws IllegalArgumentException if the number of vertices or edges is negative
+     */
+    public CSRDigraph(In in) {
+        this(EdgeList.read(in));
+    }
+
+    private CSRDigraph(EdgeList edges) {
+        this(edges.V, edges.from, edges.to, edges.weight);
+    }
+
+    /**
+     * Initializes a digraph in CSR form with {@code V} vertices and the edges
+     * {@code from[i]->to[i]} of weight {@code weight[i]}. The adjacency order is
+     * the one of an {@link EdgeWeightedDigraph} to which the edges are added in
+     * increasing order of {@code i}, as for the input stream constructor.
+     *
+     * @param  V the number of vertices
+     * @param  from the tail of every edge
+     * @param  to the head of every edge
+     * @param  weight the weight of every edge
+     * @throws IllegalArgumentException if {@code V < 0} or the three arrays have different lengths
+     * @throws IllegalArgumentException if the endpoints of any edge are not in prescribed range
+     * @throws IllegalArgumentException if any weight is {@code NaN}
+     */
+    public CSRDigraph(int V, int[] from, int[] to, double[] weight) {
+        if (V < 0) throw new IllegalArgumentException("number of vertices in a Digraph must be non-negative");
+        if (from.length != to.length || from.length != weight.length)
+            throw new IllegalArgumentException("edge arrays have different lengths");
+        this.V = V;
+        this.E = from.length;
+        for (int i = 0; i < E; i++) {
+            validateVertex(from[i]);
+            validateVertex(to[i]);
+            if (Double.isNaN(weight[i])) throw new IllegalArgumentException("Weight is NaN");
+        }
+
+        this.offsets = new int[V + 1];
+        this.sources = new int[E];
+        this.targets = new int[E];
+        this.capacities = new double[E];
+        this.indegree = new int[V];
+        this.weightedInDegree = new double[V];
+        this.contractedVertices = new VertexSet(V);
+
+        // counting sort of the edges by tail vertex
+        for (int i = 0; i < E; i++) {
+            offsets[from[i] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        // EdgeWeightedDigraph keeps the most recently added edge first, so fill each row backwards
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++) {
+            next[v] = offsets[v + 1];
+        }
+        for (int i = 0; i < E; i++) {
+            int slot = --next[from[i]];
+            sources[slot] = from[i];
+            targets[slot] = to[i];
+            capacities[slot] = weight[i];
+            indegree[to[i]]++;
+            weightedInDegree[to[i]] += weight[i];
+        }
+    }
+
+    // the edges of an input stream, in the order they were read
+    private static class EdgeList {
+        int V;
+        int[] from;
+        int[] to;
+        double[] weight;
+
+        static EdgeList read(In in) {
+            if (in == null) throw new IllegalArgumentException("argument is null");
+            EdgeList edges = new EdgeList();
+            try {
+                edges.V = in.readInt();
+                if (edges.V < 0) throw new IllegalArgumentException("number of vertices in a Digraph must be non-negative");
+                int E = in.readInt();
+                if (E < 0) throw new IllegalArgumentException("Number of edges must be non-negative");
+                edges.from = new int[E];
+                edges.to = new int[E];
+                edges.weight = new double[E];
+                for (int i = 0; i < E; i++) {
+                    edges.from[i] = in.readInt();
+                    edges.to[i] = in.readInt();
+                    edges.weight[i] = in.readDouble();
+                }
+            }
+            catch (NoSuchElementException e) {
+                throw new IllegalArgumentException("invalid input format in CSRDigraph constructor", e);
+            }
+            return edges;
+        }
+    }
+
+    /**
+     * Initializes a digraph in CSR form with the same vertices, edges and
+     * contracted vertices as {@code G}.
+     *
+     * @param  G the edge-weighted digraph to copy
+     * @throws IllegalArgumentException if {@code G} is {@code null}
+     */
+    public CSRDigraph(EdgeWeightedDigraph G) {
+        if (G == null) throw new IllegalArgumentException("argument is null");
+        this.V = G.V();
+        this.offsets = new int[V + 1];
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] = offsets[v] + G.outdegree(v);
+        }
+        this.E = offsets[V];
+        this.sources = new int[E];
+        this.targets = new int[E];
+        this.capacities = new double[E];
+        this.indegree = new int[V];
+        this.weightedInDegree = new double[V];
+        int i = 0;
+        for (int v = 0; v < V; v++) {
+            for (DirectedEdge e : G.adj(v)) {
+                sources[i] = v;
+                targets[i] = e.to();
+                capacities[i] = e.weight();
+                indegree[e.to()]++;
+                weightedInDegree[e.to()] += e.weight();
+                i++;
+            }
+        }
+        this.contractedVertices = G.contractedVertices == null ? new VertexSet(V) : new VertexSet(G.contractedVertices);
+    }
+
+    /**
+     * Returns the number of vertices in this digraph.
+     *
+     * @return the number of vertices in this digraph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in this digraph.
+     *
+     * @return the number of edges in this digraph
+     */
+    public int E() {
+        return E;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    public void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Returns the index of the first edge incident from vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the index of the first edge incident from {@code v}
+     */
+    public int begin(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * Returns one past the index of the last edge incident from vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return one past the index of the last edge incident from {@code v}
+     */
+    public int end(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * Returns the tail vertex of edge {@code i}.
+     *
+     * @param  i the edge index
+     * @return the tail vertex of edge {@code i}
+     */
+    public int from(int i) {
+        return sources[i];
+    }
+
+    /**
+     * Returns the head vertex of edge {@code i}.
+     *
+     * @param  i the edge index
+     * @return the head vertex of edge {@code i}
+     */
+    public int to(int i) {
+        return targets[i];
+    }
+
+    /**
+     * Returns the capacity (weight) of edge {@code i}.
+     *
+     * @param  i the edge index
+     * @return the capacity of edge {@code i}
+     */
+    public double capacity(int i) {
+        return capacities[i];
+    }
+
+    /**
+     * Returns the position of the first incoming edge of vertex {@code v}
+     * in the incoming edge index (see {@link #inEdge(int)}).
+     * The incoming edge index is built once, the first time it is needed.
+     *
+     * @param  v the vertex
+     * @return the position of the first incoming edge of {@code v}
+     */
+    public int inBegin(int v) {
+        if (inOffsets == null) buildInEdges();
+        return inOffsets[v];
+    }
+
+    /**
+     * Returns one past the position of the last incoming edge of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return one past the position of the last incoming edge of {@code v}
+     */
+    public int inEnd(int v) {
+        if (inOffsets == null) buildInEdges();
+        return inOffsets[v + 1];
+    }
+
+    /**
+     * Returns the edge index stored at position {@code j} of the incoming edge index.
+     * The incoming edges of {@code v} are {@code inEdge(j)} for
+     * {@code inBegin(v) <= j < inEnd(v)}.
+     *
+     * @param  j the position in the incoming edge index
+     * @return the index of the edge, to be used with {@link #from(int)} and {@link #capacity(int)}
+     */
+    public int inEdge(int j) {
+        if (inOffsets == null) buildInEdges();
+        return inEdges[j];
+    }
+
+    // counting sort of the edge indices by head vertex
+    private synchronized void buildInEdges() {
+        if (inOffsets != null) return;
+        int[] offsets = new int[V + 1];
+        int[] edges = new int[E];
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] = offsets[v] + indegree[v];
+        }
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++) {
+            next[v] = offsets[v];
+        }
+        for (int i = 0; i < E; i++) {
+            edges[next[targets[i]]++] = i;
+        }
+        inEdges = edges;
+        inOffsets = offsets;
+    }
+
+    /**
+     * Returns the number of directed edges incident from vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the outdegree of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int outdegree(int v) {
+        validateVertex(v);
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Returns the number of directed edges incident to vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the indegree of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int indegree(int v) {
+        validateVertex(v);
+        return indegree[v];
+    }
+
+    /**
+     * Returns the total weight of the directed edges incident to vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the weighted indegree of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public double weightedInDegree(int v) {
+        validateVertex(v);
+        return weightedInDegree[v];
+    }
+
+    /**
+     * Returns the upper bound of egde weights
+     */
+    public double maxCapacity() {
+        double U = 0;
+        for (int i = 0; i < E; i++) {
+            if (capacities[i] > U) {
+                U = capacities[i];
+            }
+        }
+        return U;
+    }
+
+    /**
+     * Returns true if every edge capacity is a whole number.
+     *
+     * @return {@code true} if all capacities are integers, {@code false} otherwise
+     */
+    public boolean hasIntegerCapacities() {
+        for (int i = 0; i < E; i++) {
+            if (capacities[i] != Math.rint(capacities[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns an {@link EdgeWeightedDigraph} with the same vertices, edges
+     * (in the same adjacency order) and contracted vertices as this digraph.
+     *
+     * @return this digraph in adjacency-lists representation
+     */
+    public EdgeWeightedDigraph toEdgeWeightedDigraph() {
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(V);
+        // Bag adds to the front, so add the edges of each vertex backwards
+        for (int i = E - 1; i >= 0; i--) {
+            G.addEdge(new DirectedEdge(sources[i], targets[i], capacities[i]));
+        }
+        G.contractedVertices.addAll(contractedVertices);
+        return G;
+    }
+
+    /**
+     * Returns a string representation of this digraph.
+     *
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *         followed by the <em>V</em> adjacency lists of edges
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("Number of Vertices:" + V + ", " + "Number of Edges:"+ E + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                s.append(sources[i] + "->" + targets[i] + " " + String.format("%5.2f", capacities[i]) + "  ");
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+}
@@ -1,7 +1,5 @@
 package graphpackage;
-import java.util.HashSet;
 import java.util.NoSuchElementException;
-import java.util.Set;
 import java.util.Stack;
 
 import helpermethods.Bag;
@@ -44,9 +42,10 @@ public class EdgeWeightedDigraph {
     private int V;                // number of vertices in this digraph
     private int E;                      // number of edges in this digraph
     public Bag<DirectedEdge>[] adj;    // adj[v] = adjacency list for vertex v
+    private Bag<DirectedEdge>[] inAdj; // inAdj[v] = incoming edges of vertex v, built on first use of inAdj(v)
     private int[] indegree;             // indegree[v] = indegree of vertex v
     public double[] weightedInDegree;  // weightedInDegree[v] = total weight of incoming edges of vertex v
-    public Set<Integer> contractedVertices;  // store here the vertices that get contracted to root and handle them in the methods
+    public VertexSet contractedVertices;  // store here the vertices that get contracted to root and handle them in the methods
 
     /**
      * Initializes an empty edge-weighted digraph with {@code V} vertices and 0 edges.
@@ -61,7 +60,7 @@ public class EdgeWeightedDigraph {
         this.E = 0;
         this.indegree = new int[V];
         this.weightedInDegree = new double[V];
-        contractedVertices = new HashSet<>();
+        contractedVertices = new VertexSet(V);
         adj = (Bag<DirectedEdge>[]) new Bag[V];
         for (int v = 0; v < V; v++){
             adj[v] = new Bag<DirectedEdge>();
@@ -110,6 +109,7 @@ public class EdgeWeightedDigraph {
             if (V < 0) throw new IllegalArgumentException("number of vertices in a Digraph must be non-negative");
             indegree = new int[V];
             this.weightedInDegree = new double[V];
+            contractedVertices = new VertexSet(V);
             adj = (Bag<DirectedEdge>[]) new Bag[V];
             for (int v = 0; v < V; v++) {
                 adj[v] = new Bag<DirectedEdge>();
@@ -198,6 +198,7 @@ public class EdgeWeightedDigraph {
         validateVertex(u);
         validateVertex(v);
         adj[u].add(e);
+        if (inAdj != null) inAdj[v].add(e);
         indegree[v]++;
         weightedInDegree[v] += e.weight();
         E++;
@@ -216,6 +217,37 @@ public class EdgeWeightedDigraph {
         return adj[v];
     }
 
+    /**
+     * Returns the directed edges incident to vertex {@code v}.
+     * The incoming adjacency lists are built once, the first time this method
+     * is called, and are kept up to date by {@link #addEdge(DirectedEdge)} afterwards,
+     * so iterating over them takes time proportional to the indegree of {@code v}.
+     *
+     * @param  v the vertex
+     * @return the directed edges incident to vertex {@code v} as an Iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public Iterable<DirectedEdge> inAdj(int v) {
+        validateVertex(v);
+        if (inAdj == null) buildInAdj();
+        return inAdj[v];
+    }
+
+    // build the incoming adjacency lists from the outgoing ones
+    @SuppressWarnings("unchecked")
+    private void buildInAdj() {
+        Bag<DirectedEdge>[] in = (Bag<DirectedEdge>[]) new Bag[V];
+        for (int v = 0; v < V; v++) {
+            in[v] = new Bag<DirectedEdge>();
+        }
+        for (int v = 0; v < V; v++) {
+            for (DirectedEdge e : adj[v]) {
+                in[e.to()].add(e);
+            }
+        }
+        inAdj = in;
+    }
+
     /**
      * Returns the number of directed edges incident from vertex {@code v}.
      * This is known as the <em>outdegree</em> of vertex {@code v}.
@@ -0,0 +1,239 @@
+package graphpackage;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ *  The {@code VertexSet} class represents a set of vertices named 0 through
+ *  <em>V</em> - 1, stored as a bitset of one bit per vertex.
+ *  <p>
+ *  It is used for the sets that are queried in the inner loops of the
+ *  min-cut algorithms (contracted vertices, min-cut sinks): the
+ *  <em>contains</em>, <em>add</em> and <em>remove</em> operations take
+ *  &Theta;(1) time without boxing, the size is kept up to date, and the
+ *  vertices are iterated in increasing order with {@link #nextSetBit(int)}
+ *  (or with a for-each loop, which boxes them).
+ *  It uses &Theta;(<em>V</em>) bits of space whatever the size of the set.
+ */
+public class VertexSet implements Iterable<Integer> {
+    private final int V;         // the vertices are 0 .. V-1
+    private final long[] words;  // bit (v & 63) of words[v >>> 6] = is v in the set?
+    private int size;            // number of vertices in the set
+
+    /**
+     * Initializes an empty set of vertices taken from 0 through {@code V} - 1.
+     *
+     * @param  V the number of vertices
+     * @throws IllegalArgumentException if {@code V < 0}
+     */
+    public VertexSet(int V) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
+        this.V = V;
+        this.words = new long[(V + 63) >>> 6];
+    }
+
+    /**
+     * Initializes a new set with the same vertices as {@code other}.
+     *
+     * @param  other the set to copy
+     */
+    public VertexSet(VertexSet other) {
+        this.V = other.V;
+        this.words = other.words.clone();
+        this.size = other.size;
+    }
+
+    /**
+     * Returns the number of vertices the set can hold (its vertices are 0 through V - 1).
+     *
+     * @return the number of vertices the set can hold
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of vertices in the set.
+     *
+     * @return the number of vertices in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Is vertex {@code v} in the set? Vertices outside 0 .. V - 1 are never in the set.
+     *
+     * @param  v the vertex
+     * @return {@code true} if {@code v} is in the set, {@code false} otherwise
+     */
+    public boolean contains(int v) {
+        return v >= 0 && v < V && (words[v >>> 6] & (1L << v)) != 0;
+    }
+
+    /**
+     * Adds vertex {@code v} to the set.
+     *
+     * @param  v the vertex
+     * @return {@code true} if {@code v} was not in the set already
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public boolean add(int v) {
+        validateVertex(v);
+        long bit = 1L << v;
+        if ((words[v >>> 6] & bit) != 0) return false;
+        words[v >>> 6] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes vertex {@code v} from the set.
+     *
+     * @param  v the vertex
+     * @return {@code true} if {@code v} was in the set
+     */
+    public boolean remove(int v) {
+        if (!contains(v)) return false;
+        words[v >>> 6] &= ~(1L << v);
+        size--;
+        return true;
+    }
+
+    /**
+     * Adds every vertex of {@code other} to the set.
+     *
+     * @param  other the vertices to add
+     * @throws IllegalArgumentException if {@code other} has a vertex that is not between 0 and V - 1
+     */
+    public void addAll(VertexSet other) {
+        if (other.V > V) {
+            for (int v = other.nextSetBit(V); v >= 0; v = other.nextSetBit(v + 1)) validateVertex(v);
+        }
+        int n = Math.min(words.length, other.words.length);
+        size = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (i < n) words[i] |= other.words[i];
+            size += Long.bitCount(words[i]);
+        }
+    }
+
+    /**
+     * Removes every vertex of {@code other} from the set.
+     *
+     * @param  other the vertices to remove
+     */
+    public void removeAll(VertexSet other) {
+        int n = Math.min(words.length, other.words.length);
+        size = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (i < n) words[i] &= ~other.words[i];
+            size += Long.bitCount(words[i]);
+        }
+    }
+
+    /**
+     * Removes every vertex from the set.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+        size = 0;
+    }
+
+    /**
+     * Returns the smallest vertex in the set that is at least {@code from}.
+     * The vertices of a set {@code s} are visited in increasing order with
+     * {@code for (int v = s.nextSetBit(0); v >= 0; v = s.nextSetBit(v + 1))}.
+     *
+     * @param  from the first vertex to look at
+     * @return the smallest vertex {@code >= from} in the set, or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        if (from < 0) from = 0;
+        if (from >= V) return -1;
+        int i = from >>> 6;
+        long word = words[i] & (-1L << from);
+        while (true) {
+            if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+            if (++i == words.length) return -1;
+            word = words[i];
+        }
+    }
+
+    /**
+     * Returns the vertices of the set in increasing order.
+     *
+     * @return the vertices of the set, sorted
+     */
+    public int[] toArray() {
+        int[] vertices = new int[size];
+        int n = 0;
+        for (int v = nextSetBit(0); v >= 0; v = nextSetBit(v + 1)) {
+            vertices[n++] = v;
+        }
+        return vertices;
+    }
+
+    /**
+     * Returns an iterator over the vertices of the set, in increasing order.
+     *
+     * @return an iterator over the vertices of the set
+     */
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = nextSetBit(0);
+
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            public Integer next() {
+                if (next < 0) throw new NoSuchElementException();
+                int v = next;
+                next = nextSetBit(v + 1);
+                return v;
+            }
+        };
+    }
+
+    // two sets are equal if they have the same vertices, whatever their V
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof VertexSet)) return false;
+        VertexSet that = (VertexSet) other;
+        if (size != that.size) return false;
+        int n = Math.min(words.length, that.words.length);
+        for (int i = 0; i < n; i++) {
+            if (words[i] != that.words[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int last = words.length;
+        while (last > 0 && words[last - 1] == 0) last--;
+        return Arrays.hashCode(Arrays.copyOf(words, last));
+    }
+
+    /**
+     * Returns a string representation of the set.
+     *
+     * @return the vertices of the set in increasing order, e.g. {@code [1, 4, 7]}
+     */
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+}
@@ -0,0 +1,43 @@
+package helpermethods;
+
+import graphpackage.VertexSet;
+
+// What every max-flow engine keeps besides its own work arrays: the residual network, the root and
+// the result of the last computation. Only the last target is remembered, as primitives, so no
+// computation boxes or stores anything per target.
+abstract class AbstractMaxFlowSolver implements MaxFlowSolver {
+    final ResidualNetwork network;   // built once and reused for every target t
+    final int root;
+    private int lastTarget = -1;     // target of the last computation, -1 if none
+    private double lastFlow;         // its max flow, or the flow it had when it stopped at the cutoff
+    private VertexSet minCutSink;    // its min-cut sink, null if it stopped at the cutoff
+
+    AbstractMaxFlowSolver(ResidualNetwork network, int root) {
+        this.network = network;
+        this.root = root;
+    }
+
+    // record a computation to t that ended with a max flow of value flow, and its min-cut sink
+    boolean maxFlowFound(int t, double flow) {
+        lastTarget = t;
+        lastFlow = flow;
+        minCutSink = network.minCutSink(root);
+        return true;
+    }
+
+    // record a computation to t that gave up once its flow reached the cutoff
+    boolean cutoffReached(int t, double flow) {
+        lastTarget = t;
+        lastFlow = flow;
+        minCutSink = null;
+        return false;
+    }
+
+    public double getMaxFlow(int t) {
+        return t == lastTarget ? lastFlow : 0.0;
+    }
+
+    public VertexSet getMinCutSink(int t) {
+        return t == lastTarget && minCutSink != null ? minCutSink : new VertexSet(network.V);
+    }
+}
@@ -0,0 +1,237 @@
+package helpermethods;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import graphpackage.CSRDigraph;
+import graphpackage.EdgeWeightedDigraph;
+
+// Rooted connectivity for integral capacities, as max flows per target warm-started from a packing
+// of arc-disjoint arborescences of the root spanning the vertices it reaches (an edge of capacity c can
+// be used by c arborescences). As in Lemma 5 and 7 of MinCut, the vertices the root does not reach
+// (cuts of value 0) are not targets. By Edmonds' theorem lamda is the largest number of such
+// arborescences, so a packing of k of them proves lamda >= k, and the k tree paths from the root to any
+// t are already a flow of value k to t.
+// This is not Gabow's exact packing algorithm: the packing is built greedily, one widest-path
+// arborescence at a time on the capacity the earlier ones left, taken as many times as its smallest arc
+// allows. Ties go depth first, so an arborescence takes few arcs out of the root; then k = lamda on the
+// dense and the strongly connected graphs tried so far, but in general k can be smaller than lamda.
+// The targets are visited in increasing order of weighted in-degree, an upper bound on lamda(root, t),
+// so that a small cut is found early. Once the best cut so far is k, every target is skipped in O(1);
+// any other target gets its tree paths, then Dinic up to the best cut so far, then a reset of the network.
+// Packing costs O(k' m log n) for k' distinct arborescences, so the mode pays off when lamda is small or
+// the greedy packing reaches it, e.g. on strongly connected graphs; when k stays well below lamda it is
+// one warm-started Dinic flow per target, as Lemma 5 with the Dinic engine.
+// The sink of the result is the min-cut sink of the flow engines for the first t of smallest lamda in
+// that order, which can differ from the one MinCut.rootedConnectivity reports.
+public class ArborescencePacking {
+    private final ResidualNetwork network;
+    private final int V;
+    private final int[] targets;  // the vertices in increasing order of weighted in-degree
+    private final List<int[]> arborescences = new ArrayList<>();  // parentArc[v] = arc into v, -1 for the root
+    private final List<Double> multiplicity = new ArrayList<>();   // number of copies of every arborescence
+    private double k;                                               // number of arborescences, with their copies
+
+    private final int[] parentArc;   // parentArc[v] = arc into v in the last spanningTree
+    private final int[] visited;     // visited[v] == epoch if the last spanningTree reached v
+    private int epoch;
+    private final boolean[] reachable;  // reachable[v] = whether the root reaches v, the only targets
+    private final int[] discovered;  // discovered[v] = when spanningTree last found a path to v as wide as the best one
+    private final int[] heap;        // vertices waiting in spanningTree
+    private final int[] heapIndex;   // heapIndex[v] = position of v in heap, -1 if not in it
+    private int heapSize;
+    private final double[] width;    // width[v] = smallest capacity on the widest path from the root to v found so far
+
+    public ArborescencePacking(EdgeWeightedDigraph G) {
+        this(new CSRDigraph(G));
+    }
+
+    public ArborescencePacking(CSRDigraph G) {
+        if (!G.hasIntegerCapacities()) throw new IllegalArgumentException("arborescence packing needs integer capacities");
+        this.network = new ResidualNetwork(G);
+        this.V = network.V;
+        this.targets = IntStream.range(0, V).boxed()
+                .sorted(Comparator.comparingDouble(G::weightedInDegree))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.parentArc = new int[V];
+        this.visited = new int[V];
+        this.reachable = new boolean[V];
+        this.discovered = new int[V];
+        this.heap = new int[V];
+        this.heapIndex = new int[V];
+        Arrays.fill(heapIndex, -1);
+        this.width = new double[V];
+    }
+
+    // number of arc-disjoint arborescences found by the last rootedConnectivity
+    public double arborescenceCount() {
+        return k;
+    }
+
+    // smallest lamda(root, t) over the vertices t that are not the root or contracted and that the root
+    // reaches, and its sink; as in Lemma 5 and 7 of MinCut the cuts of value 0 are left out
+    public MinCutResult rootedConnectivity(int root) {
+        System.out.println("\n---------- Running arborescence packing ----------");
+        long startTime = System.nanoTime();
+        pack(root);
+        System.out.println("Packed " + k + " arc-disjoint arborescences from " + root);
+
+        network.reset();
+        Dinic dinic = new Dinic(network, root);
+        double[] residualCapacity = network.residualCapacity;
+        double minCutValue = Double.POSITIVE_INFINITY;
+        int[] sinkOfMinCut = new int[0];
+        for (int t : targets) {
+            if (t == root || network.contractedVertices.contains(t) || !reachable[t] || k >= minCutValue) {
+                continue;
+            }
+            // the tree paths to t are a flow of value k, and Dinic goes on from there
+            for (int i = 0; i < arborescences.size(); i++) {
+                int[] parent = arborescences.get(i);
+                double copies = multiplicity.get(i);
+                for (int v = t; v != root; v = network.tail(parent[v])) {
+                    residualCapacity[parent[v]] -= copies;
+                    residualCapacity[network.reverse[parent[v]]] += copies;
+                }
+            }
+            double flow = dinic.augment(t, k, minCutValue);
+            if (flow < minCutValue) {
+                minCutValue = flow;
+                sinkOfMinCut = network.minCutSink(root).toArray();
+            }
+            network.reset();
+        }
+
+        MinCutResult finalResult = new MinCutResult(minCutValue, sinkOfMinCut);
+        finalResult.setElapsedNanos(System.nanoTime() - startTime);
+
+        System.out.println("Rooted Connectivity method (arborescence packing) has " + finalResult);
+        return finalResult;
+    }
+
+    // greedy packing: widest-path arborescences of the vertices the root reaches, on the capacity left by
+    // the earlier ones, until one does not span them
+    private void pack(int root) {
+        arborescences.clear();
+        multiplicity.clear();
+        k = 0;
+        network.reset();
+        double[] remaining = network.residualCapacity;
+        int required = -1;    // the first arborescence spans all the vertices the root reaches
+        while (true) {
+            int reached = spanningTree(root, remaining);
+            if (required < 0) {
+                required = reached;
+                for (int v = 0; v < V; v++) {
+                    reachable[v] = visited[v] == epoch;
+                }
+            }
+            if (reached == 0 || reached < required) {
+                return;
+            }
+            int[] parent = new int[V];
+            Arrays.fill(parent, -1);
+            double copies = Double.POSITIVE_INFINITY;
+            for (int v = 0; v < V; v++) {
+                if (visited[v] == epoch && v != root) {
+                    parent[v] = parentArc[v];
+                    copies = Math.min(copies, remaining[parentArc[v]]);
+                }
+            }
+            for (int v = 0; v < V; v++) {
+                if (parent[v] >= 0) remaining[parent[v]] -= copies;
+            }
+            arborescences.add(parent);
+            multiplicity.add(copies);
+            k += copies;
+        }
+    }
+
+    // widest-path arborescence from the root along arcs with at least one unit left (Dijkstra with
+    // the smallest capacity on the path instead of the length), so that its smallest arc allows as many
+    // copies as possible; returns the number of vertices reached that are not the root or contracted
+    private int spanningTree(int root, double[] remaining) {
+        newEpoch();
+        Arrays.fill(width, 0);
+        width[root] = Double.POSITIVE_INFINITY;
+        int sequence = 0;
+        discovered[root] = sequence++;
+        push(root);
+        int reached = 0;
+        while (heapSize > 0) {
+            int v = pop();
+            visited[v] = epoch;
+            if (v != root && !network.contractedVertices.contains(v)) reached++;
+            for (int a = network.first[v]; a < network.first[v + 1]; a++) {
+                int w = network.head[a];
+                double through = Math.min(width[v], remaining[a]);
+                if (remaining[a] >= 1 && visited[w] != epoch && through >= width[w]) {
+                    width[w] = through;
+                    parentArc[w] = a;
+                    discovered[w] = sequence++;
+                    if (heapIndex[w] < 0) push(w);
+                    else siftUp(heapIndex[w]);
+                }
+            }
+        }
+        return reached;
+    }
+
+    // the heap of spanningTree: widest first, and among equally wide the vertex reached last, as in a
+    // depth-first search, so that an arborescence takes few arcs out of the root and leaves them to the next
+    private boolean before(int v, int w) {
+        return width[v] != width[w] ? width[v] > width[w] : discovered[v] > discovered[w];
+    }
+
+    private void push(int v) {
+        heap[heapSize] = v;
+        heapIndex[v] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        while (i > 0 && before(v, heap[(i - 1) / 2])) {
+            heap[i] = heap[(i - 1) / 2];
+            heapIndex[heap[i]] = i;
+            i = (i - 1) / 2;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) child++;
+            if (!before(heap[child], v)) break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    private void newEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+    }
+}
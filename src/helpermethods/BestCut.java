@@ -0,0 +1,62 @@
+package helpermethods;
+
+// Best cut found so far, shared by the workers of a parallel phase or by concurrent phases.
+// Cuts are ordered by value, then by phase (in the order Theorem 1 prefers them on equal
+// values) and then by their order inside the phase (e.g. the target vertex), which is the
+// order the sequential loops keep: on equal values the first cut found wins.
+public class BestCut {
+    public static final int LEMMA_5 = 0;
+    public static final int LEMMA_8 = 1;
+    public static final int LEMMA_7 = 2;
+
+    private double lamda = Double.POSITIVE_INFINITY;
+    private int phase = Integer.MAX_VALUE;
+    private long order = Long.MAX_VALUE;
+    private int[] sink = new int[0];
+    private final double stopValue;     // finding a cut of exactly this value stops every phase
+    private volatile boolean stopped;
+
+    public BestCut() {
+        this(Double.NaN);
+    }
+
+    public BestCut(double stopValue) {
+        this.stopValue = stopValue;
+    }
+
+    public synchronized double lamda() {
+        return lamda;
+    }
+
+    public synchronized int[] sink() {
+        return sink;
+    }
+
+    public synchronized MinCutResult toResult() {
+        return new MinCutResult(lamda, sink);
+    }
+
+    // a flow of the given phase and order that reaches this value can not replace the current best cut
+    public synchronized double cutoff(int phase, long order) {
+        boolean winsTies = phase < this.phase || (phase == this.phase && order < this.order);
+        return winsTies ? Math.nextUp(lamda) : lamda;
+    }
+
+    // keep the cut if it is better than the current one; sink is sorted and is not modified afterwards
+    public synchronized void offer(int phase, long order, double lamda, int[] sink) {
+        if (lamda < this.lamda || (lamda == this.lamda && (phase < this.phase || (phase == this.phase && order < this.order)))) {
+            this.lamda = lamda;
+            this.phase = phase;
+            this.order = order;
+            this.sink = sink;
+        }
+        if (lamda == stopValue) {
+            stopped = true;
+        }
+    }
+
+    // true once a cut of the stop value has been offered; the phases then return what they have
+    public boolean isStopped() {
+        return stopped;
+    }
+}
@@ -1,99 +1,272 @@
 package helpermethods;
 
+import graphpackage.CSRDigraph;
 import graphpackage.EdgeWeightedDigraph;
 import graphpackage.DirectedEdge;
+import graphpackage.VertexSet;
 
-import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
 
 public class ContractedG {
 
-    private EdgeWeightedDigraph G;
-    public Set<Integer> highInDegree = new HashSet<>();
+    private static final long SELF_LOOP = Long.MAX_VALUE;   // key of the edges that contraction turns into self-loops
+
+    private CSRDigraph G;
+    public VertexSet highInDegree;
+    private int[] originalVertex;    // originalVertex[c] = vertex of G that is vertex c of the compact contracted graph
+    private int[] compactVertexOf;   // compactVertexOf[v] = vertex of the compact contracted graph for vertex v of G
     
     //constructor
     public ContractedG(EdgeWeightedDigraph G){
+       this(new CSRDigraph(G));
+    }
+
+    // constructor for a graph that is already in CSR form
+    public ContractedG(CSRDigraph G){
        this.G = G;
+       this.highInDegree = new VertexSet(G.V());
     }
     
     // Rooted Sparsification Lemma Implementation
     public EdgeWeightedDigraph computeContractedG(int root, double U, int k2){
-        EdgeWeightedDigraph contractedG = new EdgeWeightedDigraph(G.V()); // Create contracted graph without edges
-        int V = G.V();
+        markHighInDegree(root, U, k2);
+        EdgeWeightedDigraph contractedG = contract(vertexMap(root, false), G.V());  // Create contracted graph without edges
+        contractedG.contractedVertices.addAll(highInDegree);
+        
+        // validation flag about number of contracted graph's edges
+        // if (contractedG.E() < (1 + U) * V * k){
+        //     flag = 1;
+        // }
 
-        // vertices with weighted in-degree >= (1+U)*k
-        for (int v = 0; v < V; v++){
-            if (v != root && G.weightedInDegree[v] >= (1 + U) * k2){
+        return contractedG;
+    }
+
+    // Rooted Sparsification Lemma without the contracted vertices: the root and the vertices that
+    // are not contracted are renumbered 0 .. n-1 in increasing order of their id in G, so every later
+    // phase works on n vertices and never has to skip contracted ones. Use compactVertex for the id of
+    // the root in the returned graph and toOriginal to report a result with the ids of G.
+    public EdgeWeightedDigraph computeCompactContractedG(int root, double U, int k2){
+        markHighInDegree(root, U, k2);
+        int[] vertexOf = vertexMap(root, true);
+        return contract(vertexOf, originalVertex.length);
+    }
+
+    // computeContractedG on a ForkJoinPool, with the same contracted graph in CSR form
+    public CSRDigraph computeContractedG(int root, double U, int k2, ForkJoinPool pool){
+        markHighInDegree(root, U, k2);
+        int[] vertexOf = vertexMap(root, false);
+        CSRDigraph contractedG = pool.invoke(ForkJoinTask.adapt(() -> contractSorted(vertexOf, G.V())));
+        contractedG.contractedVertices.addAll(highInDegree);
+        return contractedG;
+    }
+
+    // computeCompactContractedG on a ForkJoinPool, with the same contracted graph in CSR form
+    public CSRDigraph computeCompactContractedG(int root, double U, int k2, ForkJoinPool pool){
+        markHighInDegree(root, U, k2);
+        int[] vertexOf = vertexMap(root, true);
+        return pool.invoke(ForkJoinTask.adapt(() -> contractSorted(vertexOf, originalVertex.length)));
+    }
+
+    // id in the last contracted graph of vertex v of G (the root for contracted vertices)
+    public int compactVertex(int v){
+        G.validateVertex(v);
+        return compactVertexOf == null ? v : compactVertexOf[v];
+    }
+
+    // the same result with the vertices of the last contracted graph renamed back to the ids of G
+    public MinCutResult toOriginal(MinCutResult result){
+        if (originalVertex == null) {
+            return result;
+        }
+        int[] sink = result.getSink();
+        int[] originalSink = new int[sink.length];
+        for (int i = 0; i < sink.length; i++) {
+            originalSink[i] = originalVertex[sink[i]];  // the renumbering keeps the order, so still sorted
+        }
+        MinCutResult original = new MinCutResult(result.getMinCutValue(), originalSink);
+        original.setElapsedNanos(result.getElapsedNanos());
+        if (result.getMinCutEdges() != null) {
+            List<DirectedEdge> edges = new ArrayList<>();
+            for (DirectedEdge e : result.getMinCutEdges()) {
+                edges.add(new DirectedEdge(originalVertex[e.from()], originalVertex[e.to()], e.weight()));
+            }
+            original.setMinCutEdges(edges);
+        }
+        return original;
+    }
+
+    // vertices with weighted in-degree >= (1+U)*k
+    private void markHighInDegree(int root, double U, int k2){
+        highInDegree.clear();
+        for (int v = 0; v < G.V(); v++){
+            if (v != root && G.weightedInDegree(v) >= (1 + U) * k2){
                 highInDegree.add(v);
-                contractedG.contractedVertices.add(v);
             }
         }
 
         System.out.println("--[DEBUG]-- High InDegree vertices:");
-        for (Integer element : highInDegree){
-            System.out.println(element);
+        for (int v = highInDegree.nextSetBit(0); v >= 0; v = highInDegree.nextSetBit(v + 1)){
+            System.out.println(v);
         }
+    }
 
-        Map<AbstractMap.SimpleEntry<Integer, Integer>, Double> uniqueEdges = new HashMap<>();
+    // vertexOf[v] = vertex of the contracted graph for vertex v of G (the root for contracted vertices);
+    // with compact the root and the vertices that are not contracted are renumbered densely
+    private int[] vertexMap(int root, boolean compact){
+        int V = G.V();
+        int[] vertexOf = new int[V];
+        if (!compact) {
+            // contracted vertices keep their id, but all their edges go to the root
+            originalVertex = null;
+            compactVertexOf = null;
+            for (int v = 0; v < V; v++){
+                vertexOf[v] = highInDegree.contains(v) ? root : v;
+            }
+            return vertexOf;
+        }
+        int n = 0;
+        originalVertex = new int[V - highInDegree.size()];
+        for (int v = 0; v < V; v++){
+            if (!highInDegree.contains(v)) {
+                originalVertex[n] = v;
+                vertexOf[v] = n++;
+            }
+        }
+        for (int v = highInDegree.nextSetBit(0); v >= 0; v = highInDegree.nextSetBit(v + 1)){
+            vertexOf[v] = vertexOf[root];
+        }
+        compactVertexOf = vertexOf;
+        return vertexOf;
+    }
 
-        for (int v = 0; v < V; v++) {
-            for (DirectedEdge e : G.adj(v)) {
-                int from = e.from();
-                int to = e.to();
-                double weight = e.weight();
-        
-                if (highInDegree.contains(from)) {
-                    from = root;
-                }
-                if (highInDegree.contains(to)) {
-                    to = root;
-                }
+    // graph on n vertices with an edge vertexOf[v] -> vertexOf[w] for every edge v -> w of G,
+    // without self-loops and with the weights of parallel edges summed
+    private EdgeWeightedDigraph contract(int[] vertexOf, int n){
+        EdgeWeightedDigraph contractedG = new EdgeWeightedDigraph(n);
+
+        // parallel edges are merged by summing their weights, keyed by the packed (from, to) pair
+        EdgeWeightMap uniqueEdges = new EdgeWeightMap(G.E());
+
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                int from = vertexOf[v];
+                int to = vertexOf[G.to(i)];
                 if (from != to) {
-                    AbstractMap.SimpleEntry<Integer, Integer> edgeKey = new AbstractMap.SimpleEntry<>(from, to);
-                    uniqueEdges.put(edgeKey, uniqueEdges.getOrDefault(edgeKey, 0.0) + weight);
+                    uniqueEdges.add(from, to, G.capacity(i));
                 }
             }
         }
         
-        // Add unique edges to contractedG
-        for (Map.Entry<AbstractMap.SimpleEntry<Integer, Integer>, Double> entry : uniqueEdges.entrySet()) {
-            int from = entry.getKey().getKey();
-            int to = entry.getKey().getValue();
-            double weight = entry.getValue();
-            contractedG.addEdge(new DirectedEdge(from, to, weight));
+        // Add unique edges to contractedG, in the order they were first seen
+        for (int i = 0; i < uniqueEdges.size(); i++) {
+            contractedG.addEdge(new DirectedEdge(uniqueEdges.from(i), uniqueEdges.to(i), uniqueEdges.weight(i)));
         }
-        
 
         // If i want to check the temp's list elements after removing duplicates
         System.out.println("Contracted G graph:");
-        for (int v = 0; v < V; v++){
+        for (int v = 0; v < n; v++){
             System.out.print(v + ": ");
             for (DirectedEdge e2 : contractedG.adj[v]){
                 System.out.print(e2 + " ");
             }
             System.out.println("\n");
         }
-        
-        // validation flag about number of contracted graph's edges
-        // if (contractedG.E() < (1 + U) * V * k){
-        //     flag = 1;
-        // }
-
         return contractedG;
     }
 
+    // the same graph as contract, built with parallel primitives instead of a hash map; runs inside a ForkJoinPool.
+    // Every edge gets the packed key (from << 32) | to, and sorting the keys groups the parallel edges.
+    // The keys are then replaced, in the same array, by (group, edge index), and a second sort lists the
+    // edges of every group in the order of G, so the weights are summed in the same order as in contract.
+    // A last sort of the groups by their first edge adds them in the order contract first saw them: the
+    // two graphs are identical. The key array is the only scratch array of size E.
+    private CSRDigraph contractSorted(int[] vertexOf, int n){
+        int E = G.E();
+
+        // packed key of every edge, self-loops last
+        long[] keys = new long[E];
+        Arrays.parallelSetAll(keys, i -> packedKey(vertexOf, i));
+        Arrays.parallelSort(keys);
+        int selfLoops = 0;
+        while (selfLoops < E && keys[E - 1 - selfLoops] == SELF_LOOP) selfLoops++;
+        int edges = E - selfLoops;
+
+        // distinct keys, in increasing order, so that the group of an edge is the position of its key
+        long[] unique = IntStream.range(0, edges).parallel()
+                .filter(i -> i == 0 || keys[i] != keys[i - 1])
+                .mapToLong(i -> keys[i])
+                .toArray();
+        int m = unique.length;
+
+        // (group, edge index) of every edge; sorting keeps every group in the order of G
+        Arrays.parallelSetAll(keys, i -> {
+            long key = packedKey(vertexOf, i);
+            return key == SELF_LOOP ? SELF_LOOP : ((long) Arrays.binarySearch(unique, key) << 32) | i;
+        });
+        Arrays.parallelSort(keys);
+        // groupStart[g] = position in keys of the first edge of group g
+        int[] groupStart = IntStream.range(0, edges).parallel()
+                .filter(j -> j == 0 || (keys[j] >>> 32) != (keys[j - 1] >>> 32))
+                .toArray();
+
+        double[] groupWeight = new double[m];
+        Arrays.parallelSetAll(groupWeight, g -> {
+            int end = g + 1 < m ? groupStart[g + 1] : edges;
+            double weight = 0.0;
+            for (int j = groupStart[g]; j < end; j++) {
+                weight += G.capacity((int) keys[j]);
+            }
+            return weight;
+        });
+
+        // groups in the order of their first edge
+        long[] order = new long[m];
+        Arrays.parallelSetAll(order, g -> (keys[groupStart[g]] << 32) | g);  // low half of the key is the edge index
+        Arrays.parallelSort(order);
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        IntStream.range(0, m).parallel().forEach(i -> {
+            int g = (int) order[i];
+            from[i] = (int) (unique[g] >>> 32);
+            to[i] = (int) unique[g];
+            weight[i] = groupWeight[g];
+        });
+
+        System.out.println("Contracted G graph: " + n + " vertices, " + m + " edges");
+        return new CSRDigraph(n, from, to, weight);
+    }
+
+    // key (from << 32) | to of edge i of G in the contracted graph, SELF_LOOP if both ends are contracted together
+    private long packedKey(int[] vertexOf, int i){
+        int from = vertexOf[G.from(i)];
+        int to = vertexOf[G.to(i)];
+        return from == to ? SELF_LOOP : ((long) from << 32) | to;
+    }
+
+    // root is the root of contractedG (see compactVertex)
     public Set<Integer> sampleVertexGenerator(int root, int sinkSize, EdgeWeightedDigraph contractedG){
+        return sampleVertexGenerator(root, sinkSize, contractedG.V(), contractedG.contractedVertices);
+    }
+
+    public Set<Integer> sampleVertexGenerator(int root, int sinkSize, CSRDigraph contractedG){
+        return sampleVertexGenerator(root, sinkSize, contractedG.V(), contractedG.contractedVertices);
+    }
+
+    private Set<Integer> sampleVertexGenerator(int root, int sinkSize, int V, VertexSet contractedVertices){
         List<Integer> nonContractedVertices = new ArrayList<>();
 
         // store non contracted vertices
-        for (int v = 0; v < contractedG.V(); v++) {
-            if (v != root && !highInDegree.contains(v)) {
+        for (int v = 0; v < V; v++) {
+            if (v != root && !contractedVertices.contains(v)) {
                 nonContractedVertices.add(v);
             }
         }
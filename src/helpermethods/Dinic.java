@@ -0,0 +1,138 @@
+package helpermethods;
+
+import java.util.Arrays;
+import graphpackage.CSRDigraph;
+import graphpackage.EdgeWeightedDigraph;
+
+// Dinic's blocking-flow max-flow, a drop-in replacement for FordFulkerson: same constructor,
+// same computeMaxFlow / getMaxFlow / getMinCutSink, same max-flow value and min-cut sink.
+// Each phase builds the BFS level graph from the root and saturates it with augmenting paths
+// found by a DFS that keeps a current-arc pointer per vertex, so no arc is scanned twice in a phase.
+public class Dinic extends AbstractMaxFlowSolver {
+    private int[] level;        // level[v] = BFS distance of v from the root in the residual network, -1 if not reached
+    private int[] currentArc;   // currentArc[v] = next arc of v to try in the current phase
+    private int[] queue;        // BFS queue
+    private int[] pathArc;      // arcs of the path the DFS is currently extending
+
+    public Dinic(EdgeWeightedDigraph G, int root) {
+        this(new CSRDigraph(G), root);
+    }
+
+    public Dinic(CSRDigraph G, int root) {
+        this(new ResidualNetwork(G), root);
+    }
+
+    // a solver on a network built by the caller, e.g. ArborescencePacking, which puts flow in it before augment
+    Dinic(ResidualNetwork network, int root) {
+        super(network, root);
+        this.level = new int[network.V];
+        this.currentArc = new int[network.V];
+        this.queue = new int[network.V];
+        this.pathArc = new int[network.V];
+    }
+
+    public boolean computeMaxFlow(int t, double cutoff) {
+        network.reset();
+        double maxFlow = 0;
+
+        while (bfs(root, t)) {
+            System.arraycopy(network.first, 0, currentArc, 0, network.V);
+            maxFlow += blockingFlow(root, t, maxFlow, cutoff);
+            if (maxFlow >= cutoff) {
+                return cutoffReached(t, maxFlow);
+            }
+        }
+
+        return maxFlowFound(t, maxFlow);
+    }
+
+    // Dinic phases on top of the flow of value flow already in the network, without reset, until no
+    // augmenting path is left or the flow reaches cutoff; returns the new flow value
+    double augment(int t, double flow, double cutoff) {
+        while (flow < cutoff && bfs(root, t)) {
+            System.arraycopy(network.first, 0, currentArc, 0, network.V);
+            flow += blockingFlow(root, t, flow, cutoff);
+        }
+        return flow;
+    }
+
+    // level graph; vertices on the level of t or deeper are never useful, so stop there
+    private boolean bfs(int s, int t) {
+        int[] first = network.first;
+        int[] head = network.head;
+        double[] residualCapacity = network.residualCapacity;
+        double epsilon = network.epsilon;
+        Arrays.fill(level, -1);
+        int qHead = 0, qTail = 0;
+        queue[qTail++] = s;
+        level[s] = 0;
+
+        while (qHead < qTail) {
+            int u = queue[qHead++];
+            if (level[t] >= 0 && level[u] >= level[t]) break;
+            for (int a = first[u]; a < first[u + 1]; a++) {
+                int v = head[a];
+                if (level[v] < 0 && residualCapacity[a] > epsilon) {
+                    level[v] = level[u] + 1;
+                    queue[qTail++] = v;
+                }
+            }
+        }
+        return level[t] >= 0;
+    }
+
+    // saturate the level graph with an iterative DFS over admissible arcs,
+    // stopping early once flowSoFar plus the flow of this phase reaches cutoff
+    private double blockingFlow(int s, int t, double flowSoFar, double cutoff) {
+        int[] first = network.first;
+        int[] head = network.head;
+        int[] reverse = network.reverse;
+        double[] residualCapacity = network.residualCapacity;
+        double epsilon = network.epsilon;
+        double flow = 0;
+        int depth = 0;
+        int u = s;
+
+        while (true) {
+            if (u == t) {
+                // bottleneck of the path, then push it and restart from the tail of the first saturated arc
+                double pathFlow = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < depth; i++) {
+                    pathFlow = Math.min(pathFlow, residualCapacity[pathArc[i]]);
+                }
+                int saturated = depth;
+                for (int i = 0; i < depth; i++) {
+                    int a = pathArc[i];
+                    residualCapacity[a] -= pathFlow;
+                    residualCapacity[reverse[a]] += pathFlow;
+                    if (saturated == depth && residualCapacity[a] <= epsilon) saturated = i;
+                }
+                flow += pathFlow;
+                if (flowSoFar + flow >= cutoff) return flow;
+                depth = saturated;
+                u = depth == 0 ? s : head[pathArc[depth - 1]];
+                continue;
+            }
+
+            int a = currentArc[u];
+            int end = first[u + 1];
+            while (a < end && (residualCapacity[a] <= epsilon || level[head[a]] != level[u] + 1)) {
+                a++;
+            }
+            currentArc[u] = a;
+
+            if (a < end) {
+                pathArc[depth++] = a;
+                u = head[a];
+            }
+            else {
+                // dead end: remove u from the level graph and retreat one arc
+                level[u] = -1;
+                if (depth == 0) return flow;
+                depth--;
+                u = network.tail(pathArc[depth]);
+                currentArc[u]++;
+            }
+        }
+    }
+}
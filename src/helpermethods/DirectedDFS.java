@@ -1,4 +1,5 @@
 package helpermethods;
+import graphpackage.CSRDigraph;
 import graphpackage.DirectedEdge;
 import graphpackage.EdgeWeightedDigraph;
 
@@ -8,7 +9,8 @@ import graphpackage.EdgeWeightedDigraph;
  *  (or set of source vertices) in a digraph. For versions that find the paths,
  *  see {@link DepthFirstDirectedPaths} and {@link BreadthFirstDirectedPaths}.
  *  <p>
- *  This implementation uses depth-first search.
+ *  This implementation uses depth-first search with an explicit stack
+ *  of primitive ints instead of recursion, so it works on very deep digraphs.
  *  The constructor takes time proportional to <em>V</em> + <em>E</em>
  *  (in the worst case),
  *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
@@ -25,6 +27,7 @@ import graphpackage.EdgeWeightedDigraph;
 public class DirectedDFS {
     private boolean[] marked;  // marked[v] = true iff v is reachable from source(s)
     private int count;         // number of vertices reachable from source(s)
+    private int[] stack;       // vertices marked but not yet explored, shared by the searches from several sources
 
     /**
      * Computes the vertices in digraph {@code G} that are
@@ -57,11 +60,56 @@ public class DirectedDFS {
         }
     }
 
-    private void dfs(EdgeWeightedDigraph G, int v) {
+    /**
+     * Computes the vertices in the CSR digraph {@code G} that are
+     * reachable from the source vertex {@code s}.
+     * @param G the digraph
+     * @param s the source vertex
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public DirectedDFS(CSRDigraph G, int s) {
+        marked = new boolean[G.V()];
+        validateVertex(s);
+        dfs(G, s);
+    }
+
+    // iterative, so that long paths do not overflow the thread stack: a vertex is marked
+    // when it is pushed, so the stack never holds more than V vertices
+    private void dfs(EdgeWeightedDigraph G, int s) {
+        if (stack == null) stack = new int[G.V()];
+        int top = 0;
+        marked[s] = true;
+        count++;
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[--top];
+            for (DirectedEdge e : G.adj(v)) {
+                int w = e.to();
+                if (!marked[w]) {
+                    marked[w] = true;
+                    count++;
+                    stack[top++] = w;
+                }
+            }
+        }
+    }
+
+    private void dfs(CSRDigraph G, int s) {
+        if (stack == null) stack = new int[G.V()];
+        int top = 0;
+        marked[s] = true;
         count++;
-        marked[v] = true;
-        for (DirectedEdge w : G.adj(v)) {
-            if (!marked[w.to()]) dfs(G, w.to());
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[--top];
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                int w = G.to(i);
+                if (!marked[w]) {
+                    marked[w] = true;
+                    count++;
+                    stack[top++] = w;
+                }
+            }
         }
     }
 
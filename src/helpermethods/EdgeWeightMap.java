@@ -0,0 +1,83 @@
+package helpermethods;
+
+import java.util.Arrays;
+
+// Sums the weights of parallel edges without boxing: an open-addressing hash table keyed by
+// the packed edge (from << 32) | to. The distinct edges are kept in the order they were first
+// added, in flat arrays, so iterating over them needs no table scan and allocates nothing.
+class EdgeWeightMap {
+    private long[] keys;       // keys[i] = packed i-th distinct edge
+    private double[] weights;  // weights[i] = total weight of the i-th distinct edge
+    private int size;          // number of distinct edges
+    private int[] slots;       // slots[h] = 1 + index of the edge hashed to h, 0 if empty
+    private int mask;          // slots.length - 1, a power of two minus one
+
+    EdgeWeightMap(int expectedEdges) {
+        int capacity = Math.max(16, expectedEdges);
+        keys = new long[capacity];
+        weights = new double[capacity];
+        slots = new int[tableSize(capacity)];
+        mask = slots.length - 1;
+    }
+
+    // add weight to the edge from -> to
+    void add(int from, int to, double weight) {
+        long key = ((long) from << 32) | (to & 0xffffffffL);
+        int h = hash(key) & mask;
+        while (slots[h] != 0) {
+            int i = slots[h] - 1;
+            if (keys[i] == key) {
+                weights[i] += weight;
+                return;
+            }
+            h = (h + 1) & mask;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            weights = Arrays.copyOf(weights, 2 * size);
+        }
+        keys[size] = key;
+        weights[size] = weight;
+        slots[h] = ++size;
+        if (2 * size > slots.length) rehash();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int from(int i) {
+        return (int) (keys[i] >>> 32);
+    }
+
+    int to(int i) {
+        return (int) keys[i];
+    }
+
+    double weight(int i) {
+        return weights[i];
+    }
+
+    // keep the table at most half full
+    private void rehash() {
+        slots = new int[2 * slots.length];
+        mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int h = hash(keys[i]) & mask;
+            while (slots[h] != 0) h = (h + 1) & mask;
+            slots[h] = i + 1;
+        }
+    }
+
+    // smallest power of two that is at least twice the number of edges
+    private static int tableSize(int edges) {
+        int n = 1;
+        while (n < 2 * edges) n <<= 1;
+        return n;
+    }
+
+    // spread the bits of both endpoints over the whole int (Fibonacci hashing)
+    private static int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
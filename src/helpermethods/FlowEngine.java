@@ -0,0 +1,45 @@
+package helpermethods;
+
+import graphpackage.CSRDigraph;
+
+// The max-flow engines MinCut can run on. AUTO picks one per graph with select(),
+// the other values force a specific engine (e.g. for benchmarking).
+public enum FlowEngine {
+    AUTO,
+    FORD_FULKERSON,
+    DINIC,
+    PUSH_RELABEL;
+
+    // below this many vertices the per-phase bookkeeping of Dinic and push-relabel does not pay off
+    private static final int SMALL_GRAPH = 64;
+    // up to this average out-degree E/V the augmenting paths of Edmonds-Karp are short and few
+    private static final int SPARSE_DEGREE = 10;
+
+    // build a solver of this engine for G and root
+    public MaxFlowSolver create(CSRDigraph G, int root) {
+        switch (this == AUTO ? select(G) : this) {
+            case FORD_FULKERSON:
+                return new FordFulkerson(G, root);
+            case PUSH_RELABEL:
+                return new PushRelabel(G, root);
+            default:
+                return new Dinic(G, root);
+        }
+    }
+
+    // choose an engine from the size and the average degree of G: Edmonds-Karp for tiny or sparse
+    // graphs, push-relabel for everything else. Measured with the rooted connectivity of Lemma 5
+    // (random graphs, weights 1..10, integer or real, ms for Edmonds-Karp / Dinic / push-relabel):
+    //   V=3000  E=18000   315 / 1109 / 881      V=3000  E=60000   16180 / 7710 / 3354
+    //   V=3000  E=30000   522 / 1099 / 1036     V=10000 E=150000  30687 / 29763 / 16892
+    //   V=10000 E=60000   3035 / 7567 / 12018   V=1000  E=50000   - / 773 / 332
+    // Real capacities give the same picture. Dinic won only twice (V=100 E=2500 by 1 ms and
+    // V=1000 E=250000 by 4%), so AUTO never picks it.
+    public static FlowEngine select(CSRDigraph G) {
+        long V = G.V();
+        if (V < SMALL_GRAPH || G.E() <= SPARSE_DEGREE * V) {
+            return FORD_FULKERSON;
+        }
+        return PUSH_RELABEL;
+    }
+}
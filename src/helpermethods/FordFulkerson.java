@@ -1,128 +1,83 @@
 package helpermethods;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Set;
-import graphpackage.DirectedEdge;
+import java.util.Arrays;
+import graphpackage.CSRDigraph;
 import graphpackage.EdgeWeightedDigraph;
 
-public class FordFulkerson {
-    private EdgeWeightedDigraph residualG;
-    private Map<Integer, Double> maxFlowMap;
-    private Map<Integer, Set<Integer>> minCutMap;
-    private int root;
+public class FordFulkerson extends AbstractMaxFlowSolver {
+    private int[] parentArc;   // parentArc[v] = arc through which the last BFS reached v
+    private int[] queue;       // BFS queue, every vertex is enqueued at most once per search
+    private int[] visited;     // visited[v] == epoch if the current BFS has reached v
+    private int epoch;
 
     public FordFulkerson(EdgeWeightedDigraph G, int root) {
-        this.residualG = new EdgeWeightedDigraph(G);
-        this.maxFlowMap = new HashMap<>();
-        this.minCutMap = new HashMap<>();
-        this.root = root;
-        residualG.contractedVertices = G.contractedVertices;
+        this(new CSRDigraph(G), root);
     }
 
-    public void computeMaxFlow(int t) {
-        int V = residualG.V();
-        int[] parent = new int[V];
-            
-        EdgeWeightedDigraph tempGraph = new EdgeWeightedDigraph(residualG);
+    public FordFulkerson(CSRDigraph G, int root) {
+        super(new ResidualNetwork(G), root);
+        this.parentArc = new int[network.V];
+        this.queue = new int[network.V];
+        this.visited = new int[network.V];
+    }
+
+    public boolean computeMaxFlow(int t, double cutoff) {
+        double[] residualCapacity = network.residualCapacity;
+        int[] reverse = network.reverse;
+
+        network.reset();
         double maxFlow = 0;
         
-        while (bfs(tempGraph, root, t, parent)) {
+        while (bfs(root, t)) {
             double pathFlow = Double.POSITIVE_INFINITY;
-            for (int to = t; to != root; to = parent[to]){
-                int from = parent[to];
-                pathFlow = Math.min(pathFlow, getResidualCapacity(tempGraph, from, to));
+            for (int v = t; v != root; v = network.tail(parentArc[v])){
+                pathFlow = Math.min(pathFlow, residualCapacity[parentArc[v]]);
             }
             
-            for (int to = t; to != root; to = parent[to]){
-                int from = parent[to];
-                updateResidualCapacity(tempGraph, from, to, -pathFlow);
-                updateResidualCapacity(tempGraph, to, from, pathFlow);
+            for (int v = t; v != root; v = network.tail(parentArc[v])){
+                int a = parentArc[v];
+                residualCapacity[a] -= pathFlow;
+                residualCapacity[reverse[a]] += pathFlow;
             }
             maxFlow += pathFlow;
-        }
-        
-        maxFlowMap.put(t, maxFlow);
-        
-        Set<Integer> minCutSet = computeMinCut(tempGraph, root);
-        minCutSet.removeAll(residualG.contractedVertices);
-        minCutMap.put(t, minCutSet);
-    }
-
-    private boolean bfs(EdgeWeightedDigraph graph, int s, int t, int[] parent) {
-        int V = graph.V();
-        boolean[] visited = new boolean[V];
-        LinkedList<Integer> queue = new LinkedList<>();
-        queue.add(s);
-        visited[s] = true;
-        parent[s] = -1;
-
-        while (!queue.isEmpty()) {
-            int u = queue.poll();
-            for (DirectedEdge e : graph.adj(u)) {
-                int v = e.to();
-                if (!visited[v] && e.weight() > 0) {
-                    queue.add(v);
-                    parent[v] = u;
-                    visited[v] = true;
-                }
+            if (maxFlow >= cutoff) {
+                return cutoffReached(t, maxFlow);
             }
         }
-        return visited[t];
-    }
-
-    private Set<Integer> computeMinCut(EdgeWeightedDigraph graph, int s) {
-        boolean[] isReachable = new boolean[graph.V()];
-        dfs(graph, s, isReachable);
         
-        Set<Integer> minCutSink = new HashSet<>();
-        for (int v = 0; v < graph.V(); v++) {
-            if (!isReachable[v]) {
-                minCutSink.add(v);
-            }
-        }
-        return minCutSink;
+        return maxFlowFound(t, maxFlow);
     }
 
-    private void dfs(EdgeWeightedDigraph graph, int s, boolean[] isReachable) {
-        isReachable[s] = true;
-        for (DirectedEdge e : graph.adj(s)) {
-            int to = e.to();
-            if (e.weight() > 0 && !isReachable[to]) {
-                dfs(graph, to, isReachable);
-            }
+    // parentArc[v] = arc through which v was reached, so the path is walked without any lookups.
+    // Stops as soon as t is discovered: the path to t is already fixed at that point
+    private boolean bfs(int s, int t) {
+        int[] first = network.first;
+        int[] head = network.head;
+        double[] residualCapacity = network.residualCapacity;
+        double epsilon = network.epsilon;
+        if (++epoch == 0) {
+            Arrays.fill(visited, 0);
+            epoch = 1;
         }
-    }
-
-    private void updateResidualCapacity(EdgeWeightedDigraph graph, int u, int v, double flow) {
-        for (DirectedEdge e : graph.adj(u)) {
-            if (e.to() == v) {
-                e.setWeight(e.weight() + flow);
-                return;
-            }
-        }
-        graph.addEdge(new DirectedEdge(u, v, flow));
-    }
+        int qHead = 0, qTail = 0;
+        queue[qTail++] = s;
+        visited[s] = epoch;
+        parentArc[s] = -1;
 
-    private double getResidualCapacity(EdgeWeightedDigraph graph, int u, int v) {
-        for (DirectedEdge e : graph.adj(u)) {
-            if (e.to() == v) {
-                return e.weight();
+        while (qHead < qTail) {
+            int u = queue[qHead++];
+            for (int a = first[u]; a < first[u + 1]; a++) {
+                int v = head[a];
+                if (visited[v] != epoch && residualCapacity[a] > epsilon) {
+                    parentArc[v] = a;
+                    if (v == t) return true;
+                    visited[v] = epoch;
+                    queue[qTail++] = v;
+                }
             }
         }
-        return 0;
-    }
-
-    public double getMaxFlow(int t) {
-        return maxFlowMap.getOrDefault(t, 0.0);
+        return false;
     }
-
-    public Set<Integer> getMinCutSink(int t) {
-        return minCutMap.getOrDefault(t, new HashSet<>());
-    }
-
  
     // public static void main(String[] args) {
     //     In in = new In("1. n=8 - m=25.txt");
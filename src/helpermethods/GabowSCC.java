@@ -6,14 +6,13 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.Stack;
-import graphpackage.DirectedEdge;
+import graphpackage.CSRDigraph;
 import graphpackage.EdgeWeightedDigraph;
 
 /******************************************************************************
  *  Compilation:  javac GabowSCC.java
  *  Execution:    java GabowSCC V E
- *  Dependencies: Digraph.java Stack.java TransitiveClosure.java StdOut.java
+ *  Dependencies: CSRDigraph.java SCCCertificate.java
  *  Data files:   https://algs4.cs.princeton.edu/42digraph/tinyDG.txt
  *                https://algs4.cs.princeton.edu/42digraph/mediumDG.txt
  *                https://algs4.cs.princeton.edu/42digraph/largeDG.txt
@@ -44,9 +43,13 @@ import graphpackage.EdgeWeightedDigraph;
  *  The <em>component identifier</em> of a vertex is an integer between
  *  0 and <em>k</em>–1, where <em>k</em> is the number of strong components.
  *  Two vertices have the same component identifier if and only if they
- *  are in the same strong component.
+ *  are in the same strong component. The components are numbered in
+ *  reverse topological order: every edge between two different components
+ *  goes from a larger to a smaller component identifier.
  *  <p>
- *  This implementation uses the Gabow's algorithm.
+ *  This implementation uses the Gabow's algorithm, with an iterative
+ *  depth-first search and primitive stacks. The vertices of each component
+ *  are also kept grouped by component (see {@link #componentBegin(int)}).
  *  The constructor takes &Theta;(<em>V</em> + <em>E</em>) time,
  *  where <em>V</em> is the number of vertices and <em>E</em> is
  *  the number of edges.
@@ -62,72 +65,105 @@ import graphpackage.EdgeWeightedDigraph;
  *  @author Robert Sedgewick
  *  @author Kevin Wayne
  */
-public class GabowSCC {
+public class GabowSCC implements StrongComponents {
 
-    private boolean[] marked;        // marked[v] = has v been visited?
     private int[] id;                // id[v] = id of strong component containing v
-    private int[] preorder;          // preorder[v] = preorder of v
+    private int[] preorder;          // preorder[v] = preorder of v, -1 if v has not been visited
     private int pre;                 // preorder number counter
     private int count;               // number of strongly-connected components
-    private Stack<Integer> stack1;
-    private Stack<Integer> stack2;
-    private Map<Integer, Set<Integer>> components;
-    private EdgeWeightedDigraph G;
+    private int[] stack1;            // vertices not yet assigned to a component
+    private int[] stack2;            // roots of the components still being explored
+    private int[] componentOffsets;  // members of component i are componentMembers[componentOffsets[i] .. componentOffsets[i+1]-1]
+    private int[] componentMembers;  // vertices grouped by component, in increasing order inside a component
 
     /**
      * Computes the strong components of the digraph {@code G}.
      * @param G the digraph
      */
     public GabowSCC(EdgeWeightedDigraph G) {
-        marked = new boolean[G.V()];
-        stack1 = new Stack<Integer>();
-        stack2 = new Stack<Integer>();
-        id = new int[G.V()];
-        preorder = new int[G.V()];
-        components = new HashMap<>();
-
-        for (int v = 0; v < G.V(); v++){
+        this(new CSRDigraph(G));
+    }
+
+    /**
+     * Computes the strong components of the CSR digraph {@code G}.
+     * The depth-first search is iterative, so it works on very deep digraphs
+     * without a large thread stack.
+     * @param G the digraph
+     */
+    public GabowSCC(CSRDigraph G) {
+        int V = G.V();
+        id = new int[V];
+        preorder = new int[V];
+        stack1 = new int[V];
+        stack2 = new int[V];
+        for (int v = 0; v < V; v++){
             id[v] = -1;
+            preorder[v] = -1;
         }
-        
-        for (int v = 0; v < G.V(); v++) {
-            if (!marked[v]) dfs(G, v);
+
+        int[] callStack = new int[V];     // vertices of the current DFS path
+        int[] nextEdge = new int[V];      // nextEdge[v] = next edge of v to follow
+        for (int v = 0; v < V; v++) {
+            if (preorder[v] < 0) dfs(G, v, callStack, nextEdge);
         }
 
-        for (int v = 0; v < G.V(); v++) {
-            components.computeIfAbsent(id[v], key -> new HashSet<>()).add(v);
+        // counting sort of the vertices by component
+        componentOffsets = new int[count + 1];
+        componentMembers = new int[V];
+        for (int v = 0; v < V; v++) {
+            componentOffsets[id[v] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            componentOffsets[i + 1] += componentOffsets[i];
+        }
+        int[] next = new int[count];
+        System.arraycopy(componentOffsets, 0, next, 0, count);
+        for (int v = 0; v < V; v++) {
+            componentMembers[next[id[v]]++] = v;
         }
 
         // check that id[] gives strong components
-        assert check(G);
+        assert SCCCertificate.check(G, this);
     }
-    
-    private void dfs(EdgeWeightedDigraph G, int v) {
-        marked[v] = true;
-        preorder[v] = pre++;
-        stack1.push(v);
-        stack2.push(v);
-
-        for (DirectedEdge e : G.adj(v)) {
-            int w = e.to();
-            if (!marked[w]) {
-                dfs(G, w);
-            }
-            else if (id[w] == -1) {
-                while (preorder[stack2.peek()] > preorder[w])
-                    stack2.pop();
+
+    // the recursive Gabow search from s, with the recursion kept in callStack
+    private void dfs(CSRDigraph G, int s, int[] callStack, int[] nextEdge) {
+        int top1 = 0, top2 = 0, depth = 0;
+        preorder[s] = pre++;
+        stack1[top1++] = s;
+        stack2[top2++] = s;
+        nextEdge[s] = G.begin(s);
+        callStack[depth++] = s;
+
+        while (depth > 0) {
+            int v = callStack[depth - 1];
+            if (nextEdge[v] < G.end(v)) {
+                int w = G.to(nextEdge[v]++);
+                if (preorder[w] < 0) {
+                    preorder[w] = pre++;
+                    stack1[top1++] = w;
+                    stack2[top2++] = w;
+                    nextEdge[w] = G.begin(w);
+                    callStack[depth++] = w;
+                }
+                else if (id[w] == -1) {
+                    while (preorder[stack2[top2 - 1]] > preorder[w])
+                        top2--;
+                }
+                continue;
             }
-        }
 
-        // found strong component containing v
-        if (stack2.peek() == v) {
-            stack2.pop();
-            int w;
-            do {
-                w = stack1.pop();
-                id[w] = count;
-            } while (w != v);
-            count++;
+            // all edges of v done: found strong component containing v?
+            depth--;
+            if (stack2[top2 - 1] == v) {
+                top2--;
+                int w;
+                do {
+                    w = stack1[--top1];
+                    id[w] = count;
+                } while (w != v);
+                count++;
+            }
         }
     }
 
@@ -165,38 +201,74 @@ public class GabowSCC {
         return id[v];
     }
 
-    // does the id[] array contain the strongly connected components?
-    private boolean check(EdgeWeightedDigraph G) {
-        TransitiveClosure tc = new TransitiveClosure(G);
-        for (int v = 0; v < G.V(); v++) {
-            for (int w = 0; w < G.V(); w++) {
-                if (stronglyConnected(v, w) != (tc.reachable(v, w) && tc.reachable(w, v)))
-                    return false;
-            }
-        }
-        return true;
+    /**
+     * Returns the position of the first vertex of component {@code i}
+     * in the component member array (see {@link #member(int)}).
+     * @param  i the component id
+     * @return the position of the first vertex of component {@code i}
+     */
+    public int componentBegin(int i) {
+        return componentOffsets[i];
+    }
+
+    /**
+     * Returns one past the position of the last vertex of component {@code i}.
+     * @param  i the component id
+     * @return one past the position of the last vertex of component {@code i}
+     */
+    public int componentEnd(int i) {
+        return componentOffsets[i + 1];
+    }
+
+    /**
+     * Returns the vertex at position {@code j} of the component member array.
+     * The vertices of component {@code i} are {@code member(j)} for
+     * {@code componentBegin(i) <= j < componentEnd(i)}, in increasing order.
+     * @param  j the position in the component member array
+     * @return the vertex at position {@code j}
+     */
+    public int member(int j) {
+        return componentMembers[j];
+    }
+
+    /**
+     * Returns the number of vertices in component {@code i}.
+     * @param  i the component id
+     * @return the number of vertices in component {@code i}
+     */
+    public int size(int i) {
+        return componentOffsets[i + 1] - componentOffsets[i];
     }
 
     // throw an IllegalArgumentException unless {@code 0 <= v < V}
     private void validateVertex(int v) {
-        int V = marked.length;
+        int V = id.length;
         if (v < 0 || v >= V)
             throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
     }
 
     public Set<Integer> getVerticesInSCC(int i){
-        return components.getOrDefault(i, new HashSet<>());
+        Set<Integer> vertices = new HashSet<>();
+        if (i < 0 || i >= count) {
+            return vertices;
+        }
+        for (int j = componentOffsets[i]; j < componentOffsets[i + 1]; j++) {
+            vertices.add(componentMembers[j]);
+        }
+        return vertices;
     }
 
     public Map<Integer, Set<Integer>> getAllSCCs(){
+        Map<Integer, Set<Integer>> components = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            components.put(i, getVerticesInSCC(i));
+        }
         return components;
     }
 
     public void printAllSCCs() {
-        for (Map.Entry<Integer, Set<Integer>> entry : components.entrySet()) {
-            int i = entry.getKey();
-            Set<Integer> vertices = entry.getValue();
-            System.out.println("SCC " + i + ": " + vertices);
+        for (int i = 0; i < count; i++) {
+            System.out.println("SCC " + i + ": " + getVerticesInSCC(i));
         }
     }
     
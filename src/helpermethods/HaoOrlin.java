@@ -0,0 +1,395 @@
+package helpermethods;
+
+import java.util.Arrays;
+import graphpackage.CSRDigraph;
+import graphpackage.EdgeWeightedDigraph;
+import graphpackage.VertexSet;
+
+// Rooted connectivity in one push-relabel run (Hao and Orlin, "A faster algorithm for finding the
+// minimum cut in a directed graph"), instead of one max flow per target as in MinCut.rootedConnectivity.
+// The root starts as the only source. Every step takes the awake vertex with the smallest label as
+// the sink t, pushes flow until no other awake vertex has excess, and records the cut into the awake
+// vertices, whose value is the excess of t. Then t becomes a source and the flow is kept for the
+// next sink. The labels are only valid inside the awake vertices, and a set of vertices that can
+// no longer reach t (a gap, or a vertex without residual arcs) is put to sleep as a dormant set.
+// Dormant sets are woken up last in first out when no awake vertex is left. Vertices with excess are
+// discharged highest label first. As in PushRelabel, a global relabel every so often, and whenever a
+// dormant set wakes up, resets the labels to the distances to t among the awake vertices (and puts the
+// awake vertices that cannot reach t to sleep), so labels do not climb one at a time.
+// Contracted vertices start as sources, so they are never a sink. The result is the smallest
+// lamda(root, t) over all the other t, with the sink side of a cut of that value. It is the same
+// lamda as the smallest max flow of the flow engines, but the sink can be another cut of the same value.
+public class HaoOrlin {
+    private static final int AWAKE = -1;   // dormant[v] for the vertices that take part in the current flow
+    // global relabel after this many times (6V + number of arcs) units of relabel work
+    private static final double GLOBAL_RELABEL_FREQUENCY = 0.5;
+
+    private final ResidualNetwork network;
+    private final int V;
+
+    private final int[] label;           // label[v] = distance label of v, valid among the awake vertices
+    private final double[] excess;       // excess[v] = flow into v minus flow out of v
+    private final int[] currentArc;      // currentArc[v] = next arc of v to try when discharging
+    private final int[] dormant;         // dormant[v] = AWAKE, 0 for a source, or the number of its dormant set
+    private int[] bucketHead;            // bucketHead[d] = an awake vertex with label d, -1 if none
+    private final int[] bucketNext;
+    private final int[] bucketPrev;
+    private int minLabel;                // no awake vertex has a smaller label
+    private int maxLabel;                // largest label of an awake vertex (0 if none is awake)
+    private int awake;                   // number of awake vertices
+    private final int[] dormantVertices; // dormant set k is dormantVertices[setStart[k-1] .. setStart[k]-1]
+    private final int[] setStart;        // setStart[0] = 0
+    private int sets;                    // number of dormant sets
+    private int[] activeHead;            // activeHead[d] = a vertex with excess that had label d when it was added, -1 if none
+    private final int[] activeNext;
+    private final boolean[] active;      // active[v] if v is on one of the active lists
+    private int maxActive;               // no active list above this one is non-empty
+    private int t;                       // current sink
+    private final int[] bfsQueue;        // BFS queue of the global relabel
+    private final boolean[] reached;     // reached[v] if the global relabel found a residual path from v to t
+    private long relabelWork;            // relabel work since the last global relabel
+
+    public HaoOrlin(EdgeWeightedDigraph G) {
+        this(new CSRDigraph(G));
+    }
+
+    public HaoOrlin(CSRDigraph G) {
+        this.network = new ResidualNetwork(G);
+        this.V = network.V;
+        this.label = new int[V];
+        this.excess = new double[V];
+        this.currentArc = new int[V];
+        this.dormant = new int[V];
+        this.bucketHead = new int[V + 1];
+        this.bucketNext = new int[V];
+        this.bucketPrev = new int[V];
+        this.dormantVertices = new int[V];
+        this.setStart = new int[V + 1];
+        this.activeHead = new int[V + 1];
+        this.activeNext = new int[V];
+        this.active = new boolean[V];
+        this.bfsQueue = new int[V];
+        this.reached = new boolean[V];
+    }
+
+    // smallest lamda(root, t) over the vertices t that are not the root or contracted, and its sink
+    public MinCutResult rootedConnectivity(int root) {
+        System.out.println("\n---------- Running Hao-Orlin ----------");
+        long startTime = System.nanoTime();
+        network.reset();
+        Arrays.fill(label, 0);
+        Arrays.fill(excess, 0);
+        Arrays.fill(bucketHead, -1);
+        Arrays.fill(activeHead, -1);
+        Arrays.fill(active, false);
+        maxActive = -1;
+        sets = 0;
+        minLabel = 0;
+        maxLabel = 0;
+        awake = 0;
+
+        // the root and the contracted vertices are the first sources, everything else is awake with label 0
+        int sources = 0;
+        for (int v = 0; v < V; v++) {
+            currentArc[v] = network.first[v];
+            if (v == root || network.contractedVertices.contains(v)) {
+                dormant[v] = 0;
+                sources++;
+            }
+            else {
+                dormant[v] = AWAKE;
+                addToBucket(v);
+            }
+        }
+        if (sources == V) {
+            return MinCutResult.empty();
+        }
+        t = bucketHead[0];
+        for (int s = 0; s < V; s++) {
+            if (dormant[s] == 0) saturate(s);
+        }
+        globalRelabel();
+
+        long globalRelabelLimit = (long) (GLOBAL_RELABEL_FREQUENCY * (6L * V + network.first[V]));
+        double minCutValue = Double.POSITIVE_INFINITY;
+        int[] sinkOfMinCut = new int[0];
+        while (true) {
+            // highest label first; an entry whose vertex fell asleep, became t or was relabeled since is stale
+            while (maxActive >= 0) {
+                int v = activeHead[maxActive];
+                if (v < 0) {
+                    maxActive--;
+                    continue;
+                }
+                activeHead[maxActive] = activeNext[v];
+                active[v] = false;
+                if (label[v] != maxActive) {
+                    activate(v);
+                    continue;
+                }
+                if (dormant[v] != AWAKE || v == t || excess[v] <= 0) continue;
+                discharge(v);
+                if (relabelWork > globalRelabelLimit) globalRelabel();
+            }
+
+            // every awake vertex but t is balanced, so the flow into the awake vertices is the excess of t
+            if (excess[t] < minCutValue) {
+                minCutValue = excess[t];
+                sinkOfMinCut = awakeVertices();
+            }
+
+            // t becomes a source
+            removeFromBucket(t);
+            dormant[t] = 0;
+            if (++sources == V) break;
+            saturate(t);
+            if (awake == 0) {
+                // the labels of the woken set were computed for an older sink: recompute them for the new one
+                wakeLastDormantSet();
+                t = bucketHead[minLabel];
+                globalRelabel();
+            }
+            else {
+                while (bucketHead[minLabel] < 0) minLabel++;
+                t = bucketHead[minLabel];
+            }
+        }
+
+        MinCutResult finalResult = new MinCutResult(minCutValue, sinkOfMinCut);
+        finalResult.setElapsedNanos(System.nanoTime() - startTime);
+
+        System.out.println("Rooted Connectivity method (Hao-Orlin) has " + finalResult);
+        return finalResult;
+    }
+
+    // push from v along admissible arcs until its excess is gone, relabeling when it gets stuck
+    private void discharge(int v) {
+        int[] first = network.first;
+        int[] head = network.head;
+        double[] residualCapacity = network.residualCapacity;
+        int end = first[v + 1];
+
+        while (excess[v] > 0) {
+            int a = currentArc[v];
+            int d = label[v];
+            for (; a < end; a++) {
+                int w = head[a];
+                if (residualCapacity[a] > 0 && dormant[w] == AWAKE && label[w] == d - 1) {
+                    push(v, a);
+                    if (excess[v] == 0) break;
+                }
+            }
+            currentArc[v] = a;
+            if (excess[v] == 0) return;
+            relabel(v);
+            if (dormant[v] != AWAKE) return;
+        }
+    }
+
+    private void push(int v, int a) {
+        int w = network.head[a];
+        double delta = Math.min(excess[v], network.residualCapacity[a]);
+        network.residualCapacity[a] -= delta;
+        network.residualCapacity[network.reverse[a]] += delta;
+        excess[v] -= delta;
+        excess[w] += delta;
+        activate(w);
+    }
+
+    // a gap above v or no residual arc into the awake vertices puts vertices to sleep, otherwise v goes up
+    private void relabel(int v) {
+        int[] first = network.first;
+        int[] head = network.head;
+        double[] residualCapacity = network.residualCapacity;
+        int d = label[v];
+
+        if (bucketHead[d] == v && bucketNext[v] < 0) {
+            // v is alone on its label: nothing with label >= d can reach t any more
+            startDormantSet();
+            for (int level = d; level <= maxLabel; level++) {
+                for (int w = bucketHead[level]; w >= 0; w = bucketNext[w]) {
+                    sleep(w);
+                    awake--;
+                }
+                bucketHead[level] = -1;
+            }
+            maxLabel = d - 1;
+            lowerMaxLabel();   // t has the smallest label and is still awake, so this stops at its label
+            return;
+        }
+
+        int minNext = Integer.MAX_VALUE;
+        for (int a = first[v]; a < first[v + 1]; a++) {
+            int w = head[a];
+            if (residualCapacity[a] > 0 && dormant[w] == AWAKE && label[w] < minNext) {
+                minNext = label[w];
+            }
+        }
+        relabelWork += 12 + first[v + 1] - first[v];
+        removeFromBucket(v);
+        if (minNext == Integer.MAX_VALUE) {
+            startDormantSet();
+            sleep(v);
+            return;
+        }
+        label[v] = minNext + 1;
+        addToBucket(v);
+        currentArc[v] = first[v];
+    }
+
+    // exact labels: distance to t in the residual network through awake vertices. The awake vertices
+    // without a residual path to t have no residual arc to the ones with a path, so they go to sleep
+    // together as a new dormant set, with the labels they had (still valid among themselves).
+    private void globalRelabel() {
+        int[] first = network.first;
+        int[] head = network.head;
+        int[] reverse = network.reverse;
+        double[] residualCapacity = network.residualCapacity;
+
+        // the buckets are linked through bucketNext, not by label, so the new labels can be written right away
+        int qHead = 0, qTail = 0;
+        reached[t] = true;
+        label[t] = 0;
+        bfsQueue[qTail++] = t;
+        while (qHead < qTail) {
+            int w = bfsQueue[qHead++];
+            for (int b = first[w]; b < first[w + 1]; b++) {
+                int x = head[b];
+                if (!reached[x] && dormant[x] == AWAKE && residualCapacity[reverse[b]] > 0) {
+                    reached[x] = true;
+                    label[x] = label[w] + 1;
+                    bfsQueue[qTail++] = x;
+                }
+            }
+        }
+
+        // the awake vertices that were not reached fall asleep, the reached ones go to the bucket of their distance
+        boolean asleep = false;
+        for (int level = minLabel; level <= maxLabel; level++) {
+            for (int w = bucketHead[level]; w >= 0; w = bucketNext[w]) {
+                if (!reached[w]) {
+                    if (!asleep) startDormantSet();
+                    asleep = true;
+                    sleep(w);
+                }
+            }
+            bucketHead[level] = -1;
+        }
+        awake = 0;
+        minLabel = 0;
+        maxLabel = 0;
+        for (int j = 0; j < qTail; j++) {
+            int w = bfsQueue[j];
+            reached[w] = false;
+            currentArc[w] = first[w];
+            addToBucket(w);
+            activate(w);
+        }
+        relabelWork = 0;
+    }
+
+    // saturate every residual arc from the new source s to a vertex that is not a source
+    private void saturate(int s) {
+        int[] first = network.first;
+        int[] head = network.head;
+        double[] residualCapacity = network.residualCapacity;
+        for (int a = first[s]; a < first[s + 1]; a++) {
+            int w = head[a];
+            double delta = residualCapacity[a];
+            if (delta > 0 && dormant[w] != 0) {
+                residualCapacity[a] = 0;
+                residualCapacity[network.reverse[a]] += delta;
+                excess[s] -= delta;
+                excess[w] += delta;
+                activate(w);
+            }
+        }
+    }
+
+    // no awake vertex is left: the most recent dormant set becomes the awake vertices
+    private void wakeLastDormantSet() {
+        int begin = setStart[sets - 1];
+        int end = setStart[sets];
+        sets--;
+        minLabel = Integer.MAX_VALUE;
+        maxLabel = 0;
+        for (int j = begin; j < end; j++) {
+            int v = dormantVertices[j];
+            dormant[v] = AWAKE;
+            currentArc[v] = network.first[v];
+            addToBucket(v);
+            minLabel = Math.min(minLabel, label[v]);
+        }
+        for (int j = begin; j < end; j++) {
+            activate(dormantVertices[j]);
+        }
+    }
+
+    private void startDormantSet() {
+        sets++;
+        setStart[sets] = setStart[sets - 1];
+    }
+
+    // add the awake vertex v to the newest dormant set (v is taken out of its bucket by the caller)
+    private void sleep(int v) {
+        dormant[v] = sets;
+        dormantVertices[setStart[sets]++] = v;
+    }
+
+    // the awake vertices, in increasing order
+    private int[] awakeVertices() {
+        VertexSet sink = new VertexSet(V);
+        for (int level = minLabel; level <= maxLabel; level++) {
+            for (int w = bucketHead[level]; w >= 0; w = bucketNext[w]) {
+                sink.add(w);
+            }
+        }
+        return sink.toArray();
+    }
+
+    private void activate(int v) {
+        if (active[v] || v == t || dormant[v] != AWAKE || excess[v] <= 0) return;
+        int d = label[v];
+        if (d >= activeHead.length) {
+            int old = activeHead.length;
+            activeHead = Arrays.copyOf(activeHead, Math.max(2 * old, d + 1));
+            Arrays.fill(activeHead, old, activeHead.length, -1);
+        }
+        activeNext[v] = activeHead[d];
+        activeHead[d] = v;
+        active[v] = true;
+        if (d > maxActive) maxActive = d;
+    }
+
+    private void addToBucket(int v) {
+        int d = label[v];
+        if (d >= bucketHead.length) {
+            int old = bucketHead.length;
+            bucketHead = Arrays.copyOf(bucketHead, Math.max(2 * old, d + 1));
+            Arrays.fill(bucketHead, old, bucketHead.length, -1);
+        }
+        bucketPrev[v] = -1;
+        bucketNext[v] = bucketHead[d];
+        if (bucketHead[d] >= 0) bucketPrev[bucketHead[d]] = v;
+        bucketHead[d] = v;
+        if (d > maxLabel) maxLabel = d;
+        awake++;
+    }
+
+    private void removeFromBucket(int v) {
+        if (bucketPrev[v] >= 0) bucketNext[bucketPrev[v]] = bucketNext[v];
+        else bucketHead[label[v]] = bucketNext[v];
+        if (bucketNext[v] >= 0) bucketPrev[bucketNext[v]] = bucketPrev[v];
+        awake--;
+        lowerMaxLabel();
+    }
+
+    // keep maxLabel on a non-empty bucket, so that the gaps and awakeVertices scan no empty levels above it
+    private void lowerMaxLabel() {
+        if (awake == 0) {
+            maxLabel = 0;
+            return;
+        }
+        while (bucketHead[maxLabel] < 0) maxLabel--;
+    }
+}
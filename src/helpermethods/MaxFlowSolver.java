@@ -0,0 +1,24 @@
+package helpermethods;
+
+import graphpackage.VertexSet;
+
+// Common interface of the max-flow engines. A solver is built for one graph and one root
+// and then answers root-to-t max-flow / min-cut queries for any number of targets t.
+public interface MaxFlowSolver {
+
+    // compute the max flow from the root to t and the sink side of a min cut
+    default void computeMaxFlow(int t) {
+        computeMaxFlow(t, Double.POSITIVE_INFINITY);
+    }
+
+    // same as computeMaxFlow(t), but give up as soon as the flow reaches cutoff: returns false in
+    // that case, getMaxFlow(t) is then only a lower bound (at least cutoff) and getMinCutSink(t) is empty
+    boolean computeMaxFlow(int t, double cutoff);
+
+    // value of the last max flow computed, if it was to t; 0 otherwise
+    double getMaxFlow(int t);
+
+    // vertices on the sink side of the min cut to t (contracted vertices excluded); only the sink
+    // of the last computation is kept, so this is empty unless the last computeMaxFlow was for t
+    VertexSet getMinCutSink(int t);
+}
@@ -1,161 +1,318 @@
 package helpermethods;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import graphpackage.CSRDigraph;
 import graphpackage.DirectedEdge;
 import graphpackage.EdgeWeightedDigraph;
+import graphpackage.VertexSet;
 
 public class MinCut{
 
-    private EdgeWeightedDigraph G;
+    private CSRDigraph G;
+    private FlowEngine flowEngine = FlowEngine.AUTO;  // max-flow engine for Lemma 5 and Lemma 7
+    private ForkJoinPool sccPool;                     // pool for the SCCs of Lemma 8, null for GabowSCC
 
     //constructor
     public MinCut(EdgeWeightedDigraph G){
-        this.G = G;  // this.G will be the contracted G for Theorem 1 as this one i use to my methods
+        this(new CSRDigraph(G));  // this.G will be the contracted G for Theorem 1 as this one i use to my methods
+    }
+
+    // constructor for a graph that is already in CSR form
+    public MinCut(CSRDigraph G){
+        this.G = G;
+    }
+
+    // force a max-flow engine instead of choosing one from the graph (AUTO)
+    public void setFlowEngine(FlowEngine flowEngine){
+        this.flowEngine = flowEngine;
+    }
+
+    // compute the SCCs of Lemma 8 with ParallelSCC on this pool (null: GabowSCC on the calling thread).
+    // The components are the same, but they are numbered differently, so between SCCs with the same
+    // cut value Lemma 8 may pick another one than with GabowSCC.
+    public void setParallelSCC(ForkJoinPool sccPool){
+        this.sccPool = sccPool;
     }
 
     // Iterate over vertices in the graph to find the value of lamda (Lemma 5)
-    public Map<String, Object> rootedConnectivity(int root){
+    public MinCutResult rootedConnectivity(int root){
+        return rootedConnectivity(root, new BestCut());
+    }
+
+    // Lemma 5 that also prunes with, and reports its cuts to, a best cut shared with the other phases.
+    // Stops early once the shared best cut is stopped.
+    public MinCutResult rootedConnectivity(int root, BestCut shared){
         System.out.println("\n---------- Running Lemma 5 ----------");
+        long startTime = System.nanoTime();
         int V = G.V();
         double minCutValue = Double.POSITIVE_INFINITY;
         double U = G.maxCapacity();
-        Set<Integer> sinkOfMinCut = new HashSet<>();
-        FordFulkerson ff = new FordFulkerson(this.G, root);
+        int[] sinkOfMinCut = new int[0];
+        MaxFlowSolver ff = flowEngine.create(G, root);
         
         // compute min-cut for root to vertex t
-        for (int t = 0; t < V; t++){    
+        for (int t = 0; t < V && !shared.isStopped(); t++){    
             if (t != root && !G.contractedVertices.contains(t)) {
-                ff.computeMaxFlow(t);
+                // a flow that reaches the best cut so far cannot improve it
+                if (!ff.computeMaxFlow(t, Math.min(minCutValue, shared.cutoff(BestCut.LEMMA_5, t)))) {
+                    continue;
+                }
                 double lamda = ff.getMaxFlow(t);
-                Set<Integer> sink = ff.getMinCutSink(t);
+                VertexSet sink = ff.getMinCutSink(t);
 
                 // Lemma 5 verification
                 // Check singletons components
                 if (sink.size() == 1 && lamda < minCutValue && lamda >0){
                         minCutValue = lamda;
-                        sinkOfMinCut = new HashSet<>(sink);
+                        sinkOfMinCut = sink.toArray();
+                        shared.offer(BestCut.LEMMA_5, t, lamda, sinkOfMinCut);
                         continue;
                 }
                 //sink size > 1 & λ < U * k
                 if (lamda < U * sink.size() && lamda < minCutValue && lamda >0){
                     minCutValue = lamda;
-                    sinkOfMinCut = new HashSet<>(sink);
+                    sinkOfMinCut = sink.toArray();
+                    shared.offer(BestCut.LEMMA_5, t, lamda, sinkOfMinCut);
                 }
             }
         }
-        Map<String, Object> finalResult = new HashMap<>();
-        finalResult.put("lamda", minCutValue);
-        finalResult.put("sink", sinkOfMinCut);
+        MinCutResult finalResult = new MinCutResult(minCutValue, sinkOfMinCut);
+        finalResult.setElapsedNanos(System.nanoTime() - startTime);
+
+        System.out.println("Rooted Connectivity method (Lemma 5) has " + finalResult);
+        return finalResult;
+    }
+
+    // Lemma 5 on all cores: the targets are split across the ForkJoinPool, every chunk of targets
+    // gets its own solver (and so its own residual buffers) and the best cut found so far is
+    // shared for pruning. Returns exactly the same lamda and sink as rootedConnectivity.
+    public MinCutResult rootedConnectivityParallel(int root, ForkJoinPool pool){
+        return rootedConnectivityParallel(root, pool, new BestCut());
+    }
+
+    // parallel Lemma 5 that also prunes with, and reports its cuts to, a best cut shared with the other phases
+    public MinCutResult rootedConnectivityParallel(int root, ForkJoinPool pool, BestCut shared){
+        System.out.println("\n---------- Running Lemma 5 (parallel) ----------");
+        long startTime = System.nanoTime();
+        FlowEngine engine = flowEngine == FlowEngine.AUTO ? FlowEngine.select(G) : flowEngine;
+
+        int[] targets = new int[G.V()];
+        int n = 0;
+        for (int t = 0; t < G.V(); t++){
+            if (t != root && !G.contractedVertices.contains(t)) {
+                targets[n++] = t;
+            }
+        }
+        // a few chunks per worker so that the faster workers can steal the rest; a solver lives
+        // only as long as its chunk, so no residual network outlives this call on a pool thread
+        int chunk = Math.max(1, n / (8 * pool.getParallelism()));
+        BestCut best = new BestCut();
+        pool.invoke(new Lemma5Task(G, root, engine, targets, 0, n, chunk, G.maxCapacity(), best, shared));
+
+        MinCutResult finalResult = best.toResult();
+        finalResult.setElapsedNanos(System.nanoTime() - startTime);
 
-        System.out.println("Rooted Connectivity method (Lemma 5) has min cut value: " + minCutValue + " and the sink component is: " + sinkOfMinCut);
+        System.out.println("Rooted Connectivity method (Lemma 5) has " + finalResult);
         return finalResult;
     }
 
+    // the targets[lo..hi) of parallel Lemma 5, split in halves down to chunk targets
+    private static class Lemma5Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CSRDigraph G;
+        private final int root;
+        private final FlowEngine engine;
+        private final int[] targets;
+        private final int lo, hi, chunk;
+        private final double U;
+        private final BestCut best;     // best cut of this phase
+        private final BestCut shared;   // best cut of all phases
+
+        Lemma5Task(CSRDigraph G, int root, FlowEngine engine, int[] targets, int lo, int hi, int chunk, double U, BestCut best, BestCut shared) {
+            this.G = G;
+            this.root = root;
+            this.engine = engine;
+            this.targets = targets;
+            this.lo = lo;
+            this.hi = hi;
+            this.chunk = chunk;
+            this.U = U;
+            this.best = best;
+            this.shared = shared;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > chunk) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Lemma5Task(G, root, engine, targets, lo, mid, chunk, U, best, shared),
+                          new Lemma5Task(G, root, engine, targets, mid, hi, chunk, U, best, shared));
+                return;
+            }
+            MaxFlowSolver ff = engine.create(G, root);
+            for (int i = lo; i < hi && !shared.isStopped(); i++) {
+                int t = targets[i];
+                double cutoff = Math.min(best.cutoff(BestCut.LEMMA_5, t), shared.cutoff(BestCut.LEMMA_5, t));
+                if (!ff.computeMaxFlow(t, cutoff)) {
+                    continue;
+                }
+                double lamda = ff.getMaxFlow(t);
+                VertexSet sink = ff.getMinCutSink(t);
+                // same Lemma 5 verification as rootedConnectivity
+                if (lamda > 0 && (sink.size() == 1 || lamda < U * sink.size())) {
+                    int[] sorted = sink.toArray();
+                    best.offer(BestCut.LEMMA_5, t, lamda, sorted);
+                    shared.offer(BestCut.LEMMA_5, t, lamda, sorted);
+                }
+            }
+        }
+    }
+
     // Iterate over SCCs in the contracted graph to find the value of lamda (Lemma 8)
-    public Map<String, Object> rootedConnectivityForSCCs(int root, int k2, double U){
+    public MinCutResult rootedConnectivityForSCCs(int root, int k2, double U){
         System.out.println("\n---------- Running Lemma 8 ----------");
-        GabowSCC scc = new GabowSCC(G);
+        long startTime = System.nanoTime();
+        StrongComponents scc = sccPool == null ? new GabowSCC(G) : new ParallelSCC(G, sccPool);
+        int V = G.V();
+        int count = scc.count();
+        int rootComponent = scc.id(root);
         double minCutValue = Double.POSITIVE_INFINITY;
-        Set<Integer> sinkOfMinCut = new HashSet<>();
+        int sinkOfMinCut = -1;
 
-        Set<Integer> smallestAvailableSCC = new HashSet<>();
+        int smallestAvailableSCC = -1;
         int minSCCSize = Integer.MAX_VALUE;
 
-        Set<Integer> rootComponent = new HashSet<>();
-
-        for (int i = 0; i < scc.count(); i++) {
-            Set<Integer> sccVertices = scc.getVerticesInSCC(i);
-            if (sccVertices.contains(root)) {
-                rootComponent = sccVertices;
+        // one pass over the vertices for how many vertices of every SCC are not contracted,
+        // and one pass over the edges for λ(r, T) of every SCC T: the edges from the root component into T
+        int[] notContracted = new int[count];
+        double[] sccCutValue = new double[count];
+        for (int v = 0; v < V; v++) {
+            int c = scc.id(v);
+            if (!G.contractedVertices.contains(v)) {
+                notContracted[c]++;
+            }
+            if (c == rootComponent) {
+                continue;
+            }
+            for (int j = G.inBegin(v); j < G.inEnd(v); j++) {
+                int e = G.inEdge(j);
+                if (scc.id(G.from(e)) == rootComponent) {
+                    sccCutValue[c] += G.capacity(e);
+                }
             }
         }
 
         // Iterate over SCCs
-        for (int i = 0; i < scc.count(); i++) {
-            Set<Integer> sccVertices = scc.getVerticesInSCC(i);
-            // System.out.println("[DEBUG] SCC " + i + " has " + sccVertices.size() + " vertices: " + sccVertices);
-
+        for (int i = 0; i < count; i++) {
             // Skip singleton SCCs || skip SCC that contains contracted vertices
-            if (sccVertices.size() <= 1 || sccVertices.contains(root) ||G.contractedVertices.containsAll(sccVertices)) {
-                // System.out.println("[DEBUG] Skipping SCC " + i + " because it's invalid.");
+            int sccSize = scc.size(i);
+            if (sccSize <= 1 || i == rootComponent || notContracted[i] == 0) {
                 continue;
             }
 
-            // Compute λ(r, T) - edges from root to SCC
-            double sccCutValue = 0.0;
-            for (Integer element : rootComponent) {
-                for (DirectedEdge e : G.adj(element)) {
-                    if (sccVertices.contains(e.to())) {
-                        sccCutValue += e.weight();
-                    }
-                }  
-            }
-            
-            System.out.println("[DEBUG] SCC with id " + i + " | Size: " + sccVertices.size() + " | Cut Value: " + sccCutValue);
+            System.out.println("[DEBUG] SCC with id " + i + " | Size: " + sccSize + " | Cut Value: " + sccCutValue[i]);
 
             // Lemma 8 verification & update min cut if SCC cut value is smaller
-            if (sccVertices.size() <= k2 && sccCutValue < k2 * U && sccCutValue < minCutValue) {
-                minCutValue = sccCutValue;
-                sinkOfMinCut = new HashSet<>(sccVertices);
+            if (sccSize <= k2 && sccCutValue[i] < k2 * U && sccCutValue[i] < minCutValue && sccCutValue[i] > 0) {
+                minCutValue = sccCutValue[i];
+                sinkOfMinCut = i;
             }
 
             // If does not exists SCC that satisfy Lemma's 8 conditions - find smallest available SCC
-            if (sccVertices.size() < minSCCSize) {
-                minSCCSize = sccVertices.size();
-                smallestAvailableSCC = new HashSet<>(sccVertices);
+            if (sccSize < minSCCSize) {
+                minSCCSize = sccSize;
+                smallestAvailableSCC = i;
             }
         }
 
         // If finally sinkOfMinCut is empty then choose the smallest available SCC 
-        if (sinkOfMinCut.isEmpty() && !smallestAvailableSCC.isEmpty()) {
+        if (sinkOfMinCut < 0 && smallestAvailableSCC >= 0) {
             System.out.println("[WARNING] No valid SCC found with k2! Using the smallest available SCC.");
             sinkOfMinCut = smallestAvailableSCC;
             minCutValue = minSCCSize;
         }
 
-        Map<String, Object> finalResult = new HashMap<>();
-        finalResult.put("lamda", minCutValue);
-        finalResult.put("sink", sinkOfMinCut);
+        // vertices of the chosen SCC, already in increasing order
+        int[] sink = new int[sinkOfMinCut < 0 ? 0 : scc.size(sinkOfMinCut)];
+        for (int n = 0; n < sink.length; n++) {
+            sink[n] = scc.member(scc.componentBegin(sinkOfMinCut) + n);
+        }
+
+        MinCutResult finalResult = new MinCutResult(minCutValue, sink);
+        finalResult.setElapsedNanos(System.nanoTime() - startTime);
 
-        System.out.println("Small sink components method (Lemma 8) has min cut value: " + minCutValue + "and the sink component is: " + sinkOfMinCut);
+        System.out.println("Small sink components method (Lemma 8) has " + finalResult);
         return finalResult;
     }
 
     // iterate over sampled vertices in the graph to find the value of lamda (Lemma 7)
-    public Map<String, Object> rootedConnectivityForSampledVertices(int root, int kLow, int kHigh, Set<Integer> sampledVertices){
-        FordFulkerson ff = new FordFulkerson(G, root);
-        
-        Map<String, Object> finalResult = new HashMap<>();
-        finalResult.put("lamda", Double.POSITIVE_INFINITY);
-        finalResult.put("sink", new HashSet<Integer>());
+    public MinCutResult rootedConnectivityForSampledVertices(int root, int kLow, int kHigh, Set<Integer> sampledVertices){
+        return rootedConnectivityForSampledVertices(root, kLow, kHigh, sampledVertices, new BestCut(), 0);
+    }
+
+    // Lemma 7 that also prunes with, and reports its cuts to, a best cut shared with the other phases.
+    // round is the index of this sample among the samples of Theorem 1 (earlier samples win ties).
+    public MinCutResult rootedConnectivityForSampledVertices(int root, int kLow, int kHigh, Set<Integer> sampledVertices, BestCut shared, int round){
+        long startTime = System.nanoTime();
+        MaxFlowSolver ff = flowEngine.create(G, root);
+        double minCutValue = Double.POSITIVE_INFINITY;
+        int[] sinkOfMinCut = new int[0];
 
         // compute min-cut for root to sampled vertex t
+        long order = (long) round * G.V();
         for (int t : sampledVertices){
-            ff.computeMaxFlow(t);
+            if (shared.isStopped()) {
+                break;
+            }
+            order++;
+            if (!ff.computeMaxFlow(t, Math.min(minCutValue, shared.cutoff(BestCut.LEMMA_7, order)))) {
+                continue;
+            }
             double lamda = ff.getMaxFlow(t);
-            Set<Integer> sink = ff.getMinCutSink(t);
+            VertexSet sink = ff.getMinCutSink(t);
 
-            if (sink.size() == 1 && lamda < (double) finalResult.get("lamda") && lamda >0) {
-                finalResult.put("lamda", lamda);
-                finalResult.put("sink", sink);
+            if (sink.size() == 1 && lamda < minCutValue && lamda >0) {
+                minCutValue = lamda;
+                sinkOfMinCut = sink.toArray();
+                shared.offer(BestCut.LEMMA_7, order, lamda, sinkOfMinCut);
                 continue;
             }
 
             // Lemma 7 verification
-            if (sink.size() >= kLow && sink.size() <= kHigh && lamda < (double) finalResult.get("lamda") && lamda >0){
-                finalResult.put("lamda", lamda);
-                finalResult.put("sink", sink);
+            if (sink.size() >= kLow && sink.size() <= kHigh && lamda < minCutValue && lamda >0){
+                minCutValue = lamda;
+                sinkOfMinCut = sink.toArray();
+                shared.offer(BestCut.LEMMA_7, order, lamda, sinkOfMinCut);
             }
         }
 
-        System.out.println("Sampling vertices method (Lemma 7): " + finalResult.get("lamda") + " and the sink component is: " + finalResult.get("sink"));
+        MinCutResult finalResult = new MinCutResult(minCutValue, sinkOfMinCut);
+        finalResult.setElapsedNanos(System.nanoTime() - startTime);
+
+        System.out.println("Sampling vertices method (Lemma 7) has " + finalResult);
         return finalResult;
     }
 
+    // fill in the edges of the cut: the edges of this graph that enter the sink from outside it
+    public void computeCutEdges(MinCutResult result){
+        List<DirectedEdge> cutEdges = new ArrayList<>();
+        for (int v : result.getSink()) {
+            for (int j = G.inBegin(v); j < G.inEnd(v); j++) {
+                int e = G.inEdge(j);
+                if (!result.sinkContains(G.from(e))) {
+                    cutEdges.add(new DirectedEdge(G.from(e), v, G.capacity(e)));
+                }
+            }
+        }
+        result.setMinCutEdges(cutEdges);
+    }
+
     // public static void main(String[] args) {
     //     In in = new In("sample.txt");
     //     EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
@@ -0,0 +1,79 @@
+package helpermethods;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import graphpackage.DirectedEdge;
+
+// Result of a rooted min-cut phase (Lemma 5, 8, 7 or Theorem 1): the cut value, the sink
+// component as a sorted array of vertices and, when asked for, the edges of the cut and the
+// running time of the phase.
+public class MinCutResult {
+    private static final int[] NO_VERTICES = new int[0];
+
+    private final double minCutValue;
+    private final int[] sink;                 // sorted, never modified
+    private List<DirectedEdge> minCutEdges;   // null unless computed with MinCut.computeCutEdges
+    private long elapsedNanos;
+
+    public MinCutResult(double minCutValue, int[] sink) {
+        this.minCutValue = minCutValue;
+        this.sink = sink;
+    }
+
+    // no cut found
+    public static MinCutResult empty() {
+        return new MinCutResult(Double.POSITIVE_INFINITY, NO_VERTICES);
+    }
+
+    public double getMinCutValue() {
+        return minCutValue;
+    }
+
+    // the sorted sink vertices; the array is shared, do not modify it
+    public int[] getSink() {
+        return sink;
+    }
+
+    public int getSinkSize() {
+        return sink.length;
+    }
+
+    public boolean sinkContains(int v) {
+        return Arrays.binarySearch(sink, v) >= 0;
+    }
+
+    public Set<Integer> getSinkSet() {
+        Set<Integer> set = new HashSet<>();
+        for (int v : sink) {
+            set.add(v);
+        }
+        return set;
+    }
+
+    public List<DirectedEdge> getMinCutEdges() {
+        return minCutEdges;
+    }
+
+    public void setMinCutEdges(List<DirectedEdge> minCutEdges) {
+        this.minCutEdges = minCutEdges;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String sinkToString() {
+        return Arrays.toString(sink);
+    }
+
+    public String toString() {
+        return "min cut value: " + minCutValue + " and the sink component is: " + sinkToString();
+    }
+}
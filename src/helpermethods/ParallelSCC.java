@@ -0,0 +1,440 @@
+package helpermethods;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import graphpackage.CSRDigraph;
+
+// Strong components on a ForkJoinPool, with the same partition as GabowSCC.
+// First the vertices without incoming or without outgoing edges are trimmed away in parallel
+// (each one is a component on its own, and removing it can expose more of them). The rest is
+// divided into weakly connected parts, and every large part is split with forward-backward search:
+// the vertices both reachable from a pivot and reaching it form its component, and the three other
+// parts (forward only, backward only, neither) can not share a component, so they are divided and
+// split again independently as parallel tasks. Small parts are finished sequentially with Gabow's
+// algorithm restricted to the part.
+// Components are numbered in increasing order of their smallest vertex, so the numbering does
+// not depend on the thread schedule (it is in general not the numbering of GabowSCC).
+public class ParallelSCC implements StrongComponents {
+    private static final int TRIM_CHUNK = 4096;       // vertices scanned by one trimming task
+    private static final int FORK_THRESHOLD = 1024;   // smaller parts are finished sequentially by the task that found them
+
+    private final CSRDigraph G;
+    private int[] id;                 // id[v] = id of strong component containing v
+    private int count;                // number of strongly-connected components
+    private int[] componentOffsets;   // members of component i are componentMembers[componentOffsets[i] .. componentOffsets[i+1]-1]
+    private int[] componentMembers;   // vertices grouped by component, in increasing order inside a component
+
+    private final int[] representative;      // representative[v] = a vertex of the component of v
+    private final int[] part;                // part[v] = label of the forward-backward part holding v, -1 once v is done
+    private final int[] forwardMark;         // forwardMark[v] = stamp of the last forward search that reached v
+    private final int[] backwardMark;        // backwardMark[v] = stamp of the last backward search that reached v
+    private final int[] preorder;            // preorder[v] = preorder of v in the search of strongComponents, -1 if not visited
+    private final AtomicInteger labels = new AtomicInteger();
+    private final AtomicInteger stamps = new AtomicInteger();
+
+    public ParallelSCC(CSRDigraph G, ForkJoinPool pool) {
+        this.G = G;
+        int V = G.V();
+        representative = new int[V];
+        part = new int[V];
+        forwardMark = new int[V];
+        backwardMark = new int[V];
+        preorder = new int[V];
+
+        // degrees without self-loops, which do not keep a vertex out of a singleton component
+        AtomicIntegerArray inDegree = new AtomicIntegerArray(V);
+        AtomicIntegerArray outDegree = new AtomicIntegerArray(V);
+        AtomicIntegerArray trimmed = new AtomicIntegerArray(V);
+        for (int v = 0; v < V; v++) {
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                int w = G.to(i);
+                if (w != v) {
+                    outDegree.incrementAndGet(v);
+                    inDegree.incrementAndGet(w);
+                }
+            }
+        }
+        pool.invoke(new TrimTask(0, V, inDegree, outDegree, trimmed));
+
+        // everything left goes to forward-backward search as one part
+        int n = 0;
+        for (int v = 0; v < V; v++) {
+            if (trimmed.get(v) == 0) n++;
+        }
+        int[] remaining = new int[n];
+        int label = labels.getAndIncrement();
+        n = 0;
+        for (int v = 0; v < V; v++) {
+            if (trimmed.get(v) == 0) {
+                remaining[n++] = v;
+                part[v] = label;
+            }
+            else {
+                part[v] = -1;
+            }
+        }
+        if (n > 0) pool.invoke(new ForwardBackwardTask(null, remaining, false));
+
+        // number the components by their smallest vertex
+        id = new int[V];
+        int[] representativeId = new int[V];
+        Arrays.fill(representativeId, -1);
+        for (int v = 0; v < V; v++) {
+            int r = representative[v];
+            if (representativeId[r] < 0) representativeId[r] = count++;
+            id[v] = representativeId[r];
+        }
+
+        // counting sort of the vertices by component
+        componentOffsets = new int[count + 1];
+        componentMembers = new int[V];
+        for (int v = 0; v < V; v++) {
+            componentOffsets[id[v] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            componentOffsets[i + 1] += componentOffsets[i];
+        }
+        int[] next = new int[count];
+        System.arraycopy(componentOffsets, 0, next, 0, count);
+        for (int v = 0; v < V; v++) {
+            componentMembers[next[id[v]]++] = v;
+        }
+
+        // check that id[] gives strong components
+        assert SCCCertificate.check(G, this);
+    }
+
+    // trim the vertices [lo, hi) that have no incoming or no outgoing edges left, and everything that exposes
+    private class TrimTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo, hi;
+        private final AtomicIntegerArray inDegree, outDegree, trimmed;
+
+        TrimTask(int lo, int hi, AtomicIntegerArray inDegree, AtomicIntegerArray outDegree, AtomicIntegerArray trimmed) {
+            this.lo = lo;
+            this.hi = hi;
+            this.inDegree = inDegree;
+            this.outDegree = outDegree;
+            this.trimmed = trimmed;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > TRIM_CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new TrimTask(lo, mid, inDegree, outDegree, trimmed),
+                          new TrimTask(mid, hi, inDegree, outDegree, trimmed));
+                return;
+            }
+            int[] stack = new int[16];
+            for (int s = lo; s < hi; s++) {
+                if ((inDegree.get(s) > 0 && outDegree.get(s) > 0) || !trimmed.compareAndSet(s, 0, 1)) {
+                    continue;
+                }
+                int top = 0;
+                stack[top++] = s;
+                while (top > 0) {
+                    int v = stack[--top];
+                    representative[v] = v;
+                    for (int i = G.begin(v); i < G.end(v); i++) {
+                        int w = G.to(i);
+                        if (w != v && inDegree.decrementAndGet(w) == 0 && trimmed.compareAndSet(w, 0, 1)) {
+                            if (top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+                            stack[top++] = w;
+                        }
+                    }
+                    for (int j = G.inBegin(v); j < G.inEnd(v); j++) {
+                        int u = G.from(G.inEdge(j));
+                        if (u != v && outDegree.decrementAndGet(u) == 0 && trimmed.compareAndSet(u, 0, 1)) {
+                            if (top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+                            stack[top++] = u;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // split parts until every vertex is in a found component; large parts are forked as new tasks
+    private class ForwardBackwardTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private int[] vertices;            // the part, null once it is handed on, so that the forked tasks do not keep it alive
+        private final boolean connected;   // whether the part is known to be weakly connected
+
+        ForwardBackwardTask(CountedCompleter<?> parent, int[] vertices, boolean connected) {
+            super(parent);
+            this.vertices = vertices;
+            this.connected = connected;
+        }
+
+        @Override
+        public void compute() {
+            int[] vs = vertices;
+            vertices = null;
+            if (connected) split(vs);
+            else hand(vs);
+            tryComplete();
+        }
+
+        // all vertices of vs have the same part label, no other vertex has it, and vs is weakly connected
+        private void split(int[] vs) {
+            int n = vs.length;
+            int pivot = vs[n / 2];
+            int label = part[pivot];
+            int stamp = stamps.incrementAndGet();
+            int[] queue = new int[n];
+            search(pivot, label, stamp, forwardMark, true, queue);
+            search(pivot, label, stamp, backwardMark, false, queue);
+            queue = null;
+
+            int f = 0, b = 0, r = 0;
+            for (int v : vs) {
+                boolean reached = forwardMark[v] == stamp;
+                boolean reaches = backwardMark[v] == stamp;
+                if (reached && reaches) continue;
+                if (reached) f++;
+                else if (reaches) b++;
+                else r++;
+            }
+            int[] forwardOnly = new int[f];
+            int[] backwardOnly = new int[b];
+            int[] neither = new int[r];
+            int forwardLabel = labels.getAndIncrement();
+            int backwardLabel = labels.getAndIncrement();
+            int neitherLabel = labels.getAndIncrement();
+            f = b = r = 0;
+            for (int v : vs) {
+                boolean reached = forwardMark[v] == stamp;
+                boolean reaches = backwardMark[v] == stamp;
+                if (reached && reaches) {
+                    representative[v] = pivot;
+                    part[v] = -1;
+                }
+                else if (reached) {
+                    forwardOnly[f++] = v;
+                    part[v] = forwardLabel;
+                }
+                else if (reaches) {
+                    backwardOnly[b++] = v;
+                    part[v] = backwardLabel;
+                }
+                else {
+                    neither[r++] = v;
+                    part[v] = neitherLabel;
+                }
+            }
+            hand(forwardOnly);
+            hand(backwardOnly);
+            hand(neither);
+        }
+
+        // all vertices of vs have the same part label and no other vertex has it;
+        // split the part into its weakly connected components, with a new label each: a large one is
+        // forked as a new task, a small one is finished here by strongComponents. Forward-backward search
+        // removes only the component of the pivot, so without this a part made of many small components
+        // would lose one of them per search, in quadratic time
+        private void hand(int[] vs) {
+            int n = vs.length;
+            if (n == 0) return;
+            int label = part[vs[0]];
+            int[] order = new int[n];    // the vertices of vs grouped by weakly connected component
+            int done = 0;
+            for (int s : vs) {
+                if (part[s] != label) continue;
+                int component = labels.getAndIncrement();
+                int begin = done;
+                part[s] = component;
+                order[done++] = s;
+                for (int q = begin; q < done; q++) {
+                    int v = order[q];
+                    for (int i = G.begin(v); i < G.end(v); i++) {
+                        int w = G.to(i);
+                        if (part[w] == label) {
+                            part[w] = component;
+                            order[done++] = w;
+                        }
+                    }
+                    for (int j = G.inBegin(v); j < G.inEnd(v); j++) {
+                        int u = G.from(G.inEdge(j));
+                        if (part[u] == label) {
+                            part[u] = component;
+                            order[done++] = u;
+                        }
+                    }
+                }
+                if (done - begin >= FORK_THRESHOLD) {
+                    addToPendingCount(1);
+                    int[] members = begin == 0 && done == n ? order : Arrays.copyOfRange(order, begin, done);
+                    new ForwardBackwardTask(this, members, true).fork();
+                }
+                else {
+                    strongComponents(order, begin, done);
+                }
+            }
+        }
+
+        // path-based strong components (Gabow) of the small weakly connected part vs[begin .. end-1]
+        private void strongComponents(int[] vs, int begin, int end) {
+            int n = end - begin;
+            int label = part[vs[begin]];
+            int[] path = new int[n];          // vertices on the search path not yet assigned to a component
+            int[] roots = new int[n];         // preorder numbers of the roots of the components still being explored
+            int[] callVertex = new int[n];    // the depth-first search, as a stack of vertices
+            int[] callEdge = new int[n];      // and of the next edge of each of them
+            for (int i = begin; i < end; i++) {
+                preorder[vs[i]] = -1;
+            }
+            int pre = 0, pathTop = 0, rootTop = 0;
+            for (int i = begin; i < end; i++) {
+                int s = vs[i];
+                if (preorder[s] >= 0) continue;
+                int depth = 0;
+                preorder[s] = pre++;
+                path[pathTop++] = s;
+                roots[rootTop++] = preorder[s];
+                callVertex[depth] = s;
+                callEdge[depth++] = G.begin(s);
+                while (depth > 0) {
+                    int v = callVertex[depth - 1];
+                    if (callEdge[depth - 1] < G.end(v)) {
+                        int w = G.to(callEdge[depth - 1]++);
+                        if (part[w] != label) continue;   // another part, or already in a component
+                        if (preorder[w] < 0) {
+                            preorder[w] = pre++;
+                            path[pathTop++] = w;
+                            roots[rootTop++] = preorder[w];
+                            callVertex[depth] = w;
+                            callEdge[depth++] = G.begin(w);
+                        }
+                        else {
+                            while (preorder[w] < roots[rootTop - 1]) rootTop--;
+                        }
+                    }
+                    else {
+                        depth--;
+                        if (roots[rootTop - 1] == preorder[v]) {
+                            rootTop--;
+                            int x;
+                            do {
+                                x = path[--pathTop];
+                                representative[x] = v;
+                                part[x] = -1;
+                            } while (x != v);
+                        }
+                    }
+                }
+            }
+        }
+
+        // BFS from s inside the part, forward along outgoing or backward along incoming edges; returns the number reached
+        private int search(int s, int label, int stamp, int[] mark, boolean forward, int[] queue) {
+            int qHead = 0, qTail = 0;
+            mark[s] = stamp;
+            queue[qTail++] = s;
+            while (qHead < qTail) {
+                int v = queue[qHead++];
+                int begin = forward ? G.begin(v) : G.inBegin(v);
+                int end = forward ? G.end(v) : G.inEnd(v);
+                for (int i = begin; i < end; i++) {
+                    int w = forward ? G.to(i) : G.from(G.inEdge(i));
+                    // vertices of other parts never carry this label, whatever their task is doing with them
+                    if (part[w] == label && mark[w] != stamp) {
+                        mark[w] = stamp;
+                        queue[qTail++] = w;
+                    }
+                }
+            }
+            return qTail;
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int id(int v) {
+        validateVertex(v);
+        return id[v];
+    }
+
+    public int componentBegin(int i) {
+        return componentOffsets[i];
+    }
+
+    public int componentEnd(int i) {
+        return componentOffsets[i + 1];
+    }
+
+    public int member(int j) {
+        return componentMembers[j];
+    }
+
+    public Set<Integer> getVerticesInSCC(int i) {
+        Set<Integer> vertices = new HashSet<>();
+        if (i < 0 || i >= count) {
+            return vertices;
+        }
+        for (int j = componentOffsets[i]; j < componentOffsets[i + 1]; j++) {
+            vertices.add(componentMembers[j]);
+        }
+        return vertices;
+    }
+
+    // regression check on the shapes that made forward-backward search quadratic: a root fanning out
+    // to many 3-cycles, and disjoint 2-cycles, at ten times the sizes that used to take seconds or run
+    // out of memory. Both must match GabowSCC and take about as long.
+    public static void main(String[] args) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        check("root and 100000 3-cycles", cycles(100000, 3, true), pool);
+        check("200000 2-cycles", cycles(200000, 2, false), pool);
+    }
+
+    private static void check(String name, CSRDigraph G, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        GabowSCC gabow = new GabowSCC(G);
+        long middle = System.nanoTime();
+        ParallelSCC parallel = new ParallelSCC(G, pool);
+        long end = System.nanoTime();
+        boolean ok = gabow.count() == parallel.count() && SCCCertificate.check(G, parallel);
+        System.out.printf("%s: %d components, GabowSCC %.1f ms, ParallelSCC %.1f ms, %s%n", name, parallel.count(),
+                (middle - start) / 1e6, (end - middle) / 1e6, ok ? "same partition" : "DIFFERENT PARTITION");
+    }
+
+    // k disjoint cycles of the given length, with an edge from an extra vertex 0 to each of them if root
+    private static CSRDigraph cycles(int k, int length, boolean root) {
+        int offset = root ? 1 : 0;
+        int E = k * (length + offset);
+        int[] from = new int[E];
+        int[] to = new int[E];
+        double[] weight = new double[E];
+        Arrays.fill(weight, 1.0);
+        int e = 0;
+        for (int c = 0; c < k; c++) {
+            int first = offset + c * length;
+            for (int i = 0; i < length; i++) {
+                from[e] = first + i;
+                to[e++] = first + (i + 1) % length;
+            }
+            if (root) {
+                from[e] = 0;
+                to[e++] = first;
+            }
+        }
+        return new CSRDigraph(offset + k * length, from, to, weight);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = id.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+}
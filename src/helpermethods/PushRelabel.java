@@ -0,0 +1,222 @@
+package helpermethods;
+
+import java.util.Arrays;
+import graphpackage.CSRDigraph;
+import graphpackage.EdgeWeightedDigraph;
+
+// Highest-label push-relabel max-flow with the gap and global relabeling heuristics.
+// It has the same constructor, computeMaxFlow / getMaxFlow / getMinCutSink as FordFulkerson.
+// Labels go up to 2V, so the vertices that cannot reach t send their excess back to the root
+// in the same run and the result is a real flow: the min-cut sink is the same set of vertices
+// that FordFulkerson reports. With real capacities that holds because every engine treats a residual
+// capacity up to ResidualNetwork.epsilon as 0, so round-off does not decide which arcs are saturated.
+public class PushRelabel extends AbstractMaxFlowSolver {
+    // global relabel after this many times (6V + number of arcs) units of relabel work
+    private static final double GLOBAL_RELABEL_FREQUENCY = 0.5;
+
+    private int V;
+    private int t;                     // sink of the current computation
+
+    private int[] height;              // height[v] = label of v, at most 2V
+    private double[] excess;           // excess[v] = flow into v minus flow out of v
+    private int[] currentArc;          // currentArc[v] = next arc of v to try when discharging
+    private int[] activeHead;          // activeHead[h] = an active vertex with height h, -1 if none
+    private int[] activeNext;          // next active vertex with the same height
+    private int maxActive;             // no active vertex is higher than this
+    private int[] levelHead;           // levelHead[h] = a vertex with height h < V, -1 if none (for the gap heuristic)
+    private int[] levelNext;
+    private int[] levelPrev;
+    private int[] queue;               // BFS queue of the global relabel
+    private long relabelWork;          // relabel work since the last global relabel
+
+    public PushRelabel(EdgeWeightedDigraph G, int root) {
+        this(new CSRDigraph(G), root);
+    }
+
+    public PushRelabel(CSRDigraph G, int root) {
+        super(new ResidualNetwork(G), root);
+        this.V = network.V;
+        this.height = new int[V];
+        this.excess = new double[V];
+        this.currentArc = new int[V];
+        this.activeHead = new int[2 * V + 1];
+        this.activeNext = new int[V];
+        this.levelHead = new int[V];
+        this.levelNext = new int[V];
+        this.levelPrev = new int[V];
+        this.queue = new int[V];
+    }
+
+    // only the excess of t counts towards the cutoff: t never pushes, so it can only grow
+    public boolean computeMaxFlow(int t, double cutoff) {
+        int[] first = network.first;
+        double[] residualCapacity = network.residualCapacity;
+        this.t = t;
+        network.reset();
+        Arrays.fill(excess, 0);
+
+        // saturate every arc out of the root
+        for (int a = first[root]; a < first[root + 1]; a++) {
+            double delta = residualCapacity[a];
+            if (delta > 0) {
+                residualCapacity[a] = 0;
+                residualCapacity[network.reverse[a]] += delta;
+                excess[network.head[a]] += delta;
+                excess[root] -= delta;
+            }
+        }
+        globalRelabel();
+
+        long globalRelabelLimit = (long) (GLOBAL_RELABEL_FREQUENCY * (6L * V + first[V]));
+        // checked before the first discharge too: saturating the root arcs may already bring cutoff into t
+        while (maxActive >= 0 && excess[t] < cutoff) {
+            int u = activeHead[maxActive];
+            if (u < 0) {
+                maxActive--;
+                continue;
+            }
+            activeHead[maxActive] = activeNext[u];
+            discharge(u);
+            if (relabelWork > globalRelabelLimit) {
+                globalRelabel();
+            }
+        }
+
+        if (excess[t] >= cutoff) {
+            return cutoffReached(t, excess[t]);
+        }
+        return maxFlowFound(t, excess[t]);
+    }
+
+    // push from u along admissible arcs until its excess is gone, relabeling when it gets stuck
+    private void discharge(int u) {
+        int[] first = network.first;
+        int[] head = network.head;
+        double[] residualCapacity = network.residualCapacity;
+        double epsilon = network.epsilon;
+        int end = first[u + 1];
+
+        while (excess[u] > 0) {
+            int a = currentArc[u];
+            int h = height[u];
+            for (; a < end; a++) {
+                if (residualCapacity[a] > epsilon && height[head[a]] == h - 1) {
+                    push(u, a);
+                    if (excess[u] == 0) break;
+                }
+            }
+            currentArc[u] = a;
+            if (excess[u] == 0) return;
+            relabel(u);
+            if (height[u] >= 2 * V) return;   // cannot reach t or the root any more
+        }
+    }
+
+    private void push(int u, int a) {
+        int v = network.head[a];
+        double delta = Math.min(excess[u], network.residualCapacity[a]);
+        network.residualCapacity[a] -= delta;
+        network.residualCapacity[network.reverse[a]] += delta;
+        excess[u] -= delta;
+        if (excess[v] == 0 && v != t && v != root) {
+            activate(v);
+        }
+        excess[v] += delta;
+    }
+
+    private void relabel(int u) {
+        int[] first = network.first;
+        int[] head = network.head;
+        double[] residualCapacity = network.residualCapacity;
+        double epsilon = network.epsilon;
+        int oldHeight = height[u];
+        int minHeight = 2 * V;
+        for (int a = first[u]; a < first[u + 1]; a++) {
+            if (residualCapacity[a] > epsilon && height[head[a]] < minHeight) {
+                minHeight = height[head[a]];
+            }
+        }
+        relabelWork += 12 + first[u + 1] - first[u];
+
+        if (oldHeight < V) removeFromLevel(u);
+        int newHeight = Math.min(minHeight + 1, 2 * V);
+        if (oldHeight < V && levelHead[oldHeight] < 0) {
+            // gap: nothing is left on oldHeight, so no vertex above it can reach t
+            gap(oldHeight);
+            newHeight = Math.max(newHeight, V + 1);
+        }
+        height[u] = newHeight;
+        if (newHeight < V) addToLevel(u);
+        currentArc[u] = first[u];
+    }
+
+    // lift every vertex with a height in (h, V) to V + 1; u is the highest active vertex, so these are all inactive
+    private void gap(int h) {
+        for (int level = h + 1; level < V; level++) {
+            for (int w = levelHead[level]; w >= 0; w = levelNext[w]) {
+                height[w] = V + 1;
+                currentArc[w] = network.first[w];
+            }
+            levelHead[level] = -1;
+        }
+    }
+
+    // exact heights: distance to t in the residual network, or V plus the distance to the root
+    private void globalRelabel() {
+        int[] first = network.first;
+        int[] head = network.head;
+        int[] reverse = network.reverse;
+        double[] residualCapacity = network.residualCapacity;
+        double epsilon = network.epsilon;
+        int unreached = 2 * V;
+        Arrays.fill(height, unreached);
+        height[root] = V;
+        height[t] = 0;
+
+        for (int source : new int[] { t, root }) {
+            int qHead = 0, qTail = 0;
+            queue[qTail++] = source;
+            while (qHead < qTail) {
+                int w = queue[qHead++];
+                for (int b = first[w]; b < first[w + 1]; b++) {
+                    int x = head[b];
+                    if (height[x] == unreached && residualCapacity[reverse[b]] > epsilon) {
+                        height[x] = height[w] + 1;
+                        queue[qTail++] = x;
+                    }
+                }
+            }
+        }
+
+        Arrays.fill(activeHead, -1);
+        Arrays.fill(levelHead, -1);
+        maxActive = -1;
+        for (int v = 0; v < V; v++) {
+            currentArc[v] = first[v];
+            if (height[v] < V) addToLevel(v);
+            if (v != root && v != t && excess[v] > 0 && height[v] < unreached) activate(v);
+        }
+        relabelWork = 0;
+    }
+
+    private void activate(int v) {
+        int h = height[v];
+        activeNext[v] = activeHead[h];
+        activeHead[h] = v;
+        if (h > maxActive) maxActive = h;
+    }
+
+    private void addToLevel(int v) {
+        int h = height[v];
+        levelPrev[v] = -1;
+        levelNext[v] = levelHead[h];
+        if (levelHead[h] >= 0) levelPrev[levelHead[h]] = v;
+        levelHead[h] = v;
+    }
+
+    private void removeFromLevel(int v) {
+        if (levelPrev[v] >= 0) levelNext[levelPrev[v]] = levelNext[v];
+        else levelHead[height[v]] = levelNext[v];
+        if (levelNext[v] >= 0) levelPrev[levelNext[v]] = levelPrev[v];
+    }
+}
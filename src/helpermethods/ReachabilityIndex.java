@@ -0,0 +1,159 @@
+package helpermethods;
+
+import java.util.Arrays;
+import graphpackage.CSRDigraph;
+import graphpackage.EdgeWeightedDigraph;
+
+// Reachability queries "is there a directed path from v to w" with the same reachable(v, w) as
+// TransitiveClosure, but built in O(V + E) time and space on the GabowSCC condensation DAG.
+// Most queries are answered in O(1) by one of these labels of the components:
+//  - GabowSCC ids are a reverse topological order, so a component never reaches a larger id;
+//  - a DFS spanning forest of the DAG gives [pre, post] intervals, and a descendant in the forest is reachable;
+//  - low[c] = smallest post number reachable from c, so if c reaches d then [low[d], post[d]] lies in [low[c], post[c]].
+// The remaining queries fall back to a DFS on the DAG that skips components the labels rule out.
+public class ReachabilityIndex {
+    private int[] id;            // id[v] = strong component of v
+    private int[] dagOffsets;    // successors of component c are dagTargets[dagOffsets[c] .. dagOffsets[c+1]-1]
+    private int[] dagTargets;
+    private int[] pre;           // preorder of c in the DFS spanning forest
+    private int[] post;          // postorder of c in the DFS spanning forest
+    private int[] low;           // smallest postorder reachable from c
+
+    private int[] visited;       // visited[c] == epoch if the current fallback search has reached c
+    private int epoch;
+    private int[] stack;         // stack of the fallback search
+
+    public ReachabilityIndex(EdgeWeightedDigraph G) {
+        this(new CSRDigraph(G));
+    }
+
+    public ReachabilityIndex(CSRDigraph G) {
+        GabowSCC scc = new GabowSCC(G);
+        int V = G.V();
+        int C = scc.count();
+        id = new int[V];
+        for (int v = 0; v < V; v++) {
+            id[v] = scc.id(v);
+        }
+
+        // condensation DAG in CSR form, without parallel edges
+        int[] lastSource = new int[C];
+        dagOffsets = new int[C + 1];
+        int edges = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            Arrays.fill(lastSource, -1);
+            edges = 0;
+            for (int c = 0; c < C; c++) {
+                if (pass == 1) dagOffsets[c] = edges;
+                for (int j = scc.componentBegin(c); j < scc.componentEnd(c); j++) {
+                    int v = scc.member(j);
+                    for (int i = G.begin(v); i < G.end(v); i++) {
+                        int d = id[G.to(i)];
+                        if (d != c && lastSource[d] != c) {
+                            lastSource[d] = c;
+                            if (pass == 1) dagTargets[edges] = d;
+                            edges++;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) dagTargets = new int[edges];
+        }
+        dagOffsets[C] = edges;
+
+        // iterative DFS over the DAG, sources first (largest ids first)
+        pre = new int[C];
+        post = new int[C];
+        low = new int[C];
+        Arrays.fill(pre, -1);
+        int[] nextArc = new int[C];
+        int[] callStack = new int[C];
+        int preCounter = 0, postCounter = 0;
+        for (int s = C - 1; s >= 0; s--) {
+            if (pre[s] >= 0) continue;
+            int depth = 0;
+            pre[s] = preCounter++;
+            nextArc[s] = dagOffsets[s];
+            callStack[depth++] = s;
+            while (depth > 0) {
+                int c = callStack[depth - 1];
+                if (nextArc[c] < dagOffsets[c + 1]) {
+                    int d = dagTargets[nextArc[c]++];
+                    if (pre[d] < 0) {
+                        pre[d] = preCounter++;
+                        nextArc[d] = dagOffsets[d];
+                        callStack[depth++] = d;
+                    }
+                    continue;
+                }
+                // every successor of c is finished, in or out of the subtree of c
+                depth--;
+                post[c] = postCounter++;
+                int m = post[c];
+                for (int a = dagOffsets[c]; a < dagOffsets[c + 1]; a++) {
+                    m = Math.min(m, low[dagTargets[a]]);
+                }
+                low[c] = m;
+            }
+        }
+
+        visited = new int[C];
+        stack = new int[C];
+    }
+
+    /**
+     * Is there a directed path from vertex {@code v} to vertex {@code w} in the digraph?
+     * @param  v the source vertex
+     * @param  w the target vertex
+     * @return {@code true} if there is a directed path from {@code v} to {@code w},
+     *         {@code false} otherwise
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IllegalArgumentException unless {@code 0 <= w < V}
+     */
+    public boolean reachable(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        int c = id[v];
+        int d = id[w];
+        if (c == d) return true;
+        if (c < d) return false;
+        if (pre[c] <= pre[d] && post[d] <= post[c]) return true;
+        if (!labelContains(c, d)) return false;
+        return search(c, d);
+    }
+
+    // can c reach d as far as the low/post labels can tell?
+    private boolean labelContains(int c, int d) {
+        return low[c] <= low[d] && post[d] <= post[c];
+    }
+
+    // DFS on the DAG from c, only through components whose labels still allow reaching d
+    private synchronized boolean search(int c, int d) {
+        if (++epoch == 0) {
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+        int top = 0;
+        visited[c] = epoch;
+        stack[top++] = c;
+        while (top > 0) {
+            int x = stack[--top];
+            for (int a = dagOffsets[x]; a < dagOffsets[x + 1]; a++) {
+                int y = dagTargets[a];
+                if (y == d) return true;
+                if (visited[y] == epoch || y < d || !labelContains(y, d)) continue;
+                if (pre[y] <= pre[d] && post[d] <= post[y]) return true;
+                visited[y] = epoch;
+                stack[top++] = y;
+            }
+        }
+        return false;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = id.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+}
@@ -0,0 +1,153 @@
+package helpermethods;
+
+import java.util.Arrays;
+import graphpackage.CSRDigraph;
+import graphpackage.VertexSet;
+
+// Residual network shared by the max-flow engines. It is built once per engine and reused
+// for every target t: reset() restores the capacities instead of copying the graph.
+// Every pair of adjacent vertices gets one arc in each direction: parallel edges are merged
+// and an edge u->v shares its arc with the reverse residual arc of an edge v->u.
+class ResidualNetwork {
+    // with real capacities, residual capacities up to this fraction of the largest capacity count as 0
+    private static final double ROUND_OFF = 1e-9;
+
+    final int V;
+    final int[] first;                // arcs of vertex v are first[v] .. first[v+1]-1
+    final int[] head;                 // head[a] = head vertex of arc a
+    final double[] capacity;          // capacity[a] = total weight of the edges tail -> head[a]
+    final double[] residualCapacity;  // residualCapacity[a] = capacity[a] minus the flow on arc a
+    final int[] reverse;              // reverse[a] = the arc head[a] -> tail of a, paired at construction
+    final VertexSet contractedVertices;
+    final double epsilon;             // an arc is saturated when its residual capacity is at most epsilon
+
+    private final int[] reached;      // reached[v] == epoch if the last search reached v
+    private int epoch;
+    private final int[] stack;        // stack of the search, a vertex is pushed at most once
+
+    ResidualNetwork(CSRDigraph G) {
+        this.V = G.V();
+        this.contractedVertices = G.contractedVertices;
+        this.epsilon = G.hasIntegerCapacities() ? 0 : ROUND_OFF * G.maxCapacity();
+
+        int[] mark = new int[V];     // mark[w] == u when w is already a neighbour of u
+        int[] arcTo = new int[V];    // arcTo[w] = arc u->w while building the arcs of u
+        Arrays.fill(mark, -1);
+        int[] first = new int[V + 1];
+        for (int u = 0; u < V; u++) {
+            int count = 0;
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                int w = G.to(i);
+                if (w != u && mark[w] != u) { mark[w] = u; count++; }
+            }
+            for (int j = G.inBegin(u); j < G.inEnd(u); j++) {
+                int w = G.from(G.inEdge(j));
+                if (w != u && mark[w] != u) { mark[w] = u; count++; }
+            }
+            first[u + 1] = first[u] + count;
+        }
+
+        int[] head = new int[first[V]];
+        double[] capacity = new double[first[V]];
+        Arrays.fill(mark, -1);
+        for (int u = 0; u < V; u++) {
+            int a = first[u];
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                int w = G.to(i);
+                if (w == u) continue;
+                if (mark[w] != u) { mark[w] = u; arcTo[w] = a; head[a++] = w; }
+                capacity[arcTo[w]] += G.capacity(i);
+            }
+            for (int j = G.inBegin(u); j < G.inEnd(u); j++) {
+                int w = G.from(G.inEdge(j));
+                if (w == u) continue;
+                if (mark[w] != u) { mark[w] = u; arcTo[w] = a; head[a++] = w; }
+            }
+        }
+
+        // pair every arc u->w with its reverse w->u; an arc towards a higher numbered vertex
+        // waits in pending[] until its head is processed
+        int[] reverse = new int[first[V]];
+        int[] pendingStart = new int[V + 1];
+        for (int u = 0; u < V; u++) {
+            for (int a = first[u]; a < first[u + 1]; a++) {
+                if (head[a] < u) pendingStart[u + 1]++;
+            }
+            pendingStart[u + 1] += pendingStart[u];
+        }
+        int[] pending = new int[pendingStart[V]];
+        int[] pendingTail = new int[pendingStart[V]];
+        int[] fill = Arrays.copyOf(pendingStart, V);
+        for (int u = 0; u < V; u++) {
+            for (int a = first[u]; a < first[u + 1]; a++) {
+                arcTo[head[a]] = a;
+            }
+            for (int p = pendingStart[u]; p < pendingStart[u + 1]; p++) {
+                int a = pending[p];
+                int b = arcTo[pendingTail[p]];
+                reverse[a] = b;
+                reverse[b] = a;
+            }
+            for (int a = first[u]; a < first[u + 1]; a++) {
+                int w = head[a];
+                if (w > u) {
+                    pending[fill[w]] = a;
+                    pendingTail[fill[w]++] = u;
+                }
+            }
+        }
+
+        this.first = first;
+        this.head = head;
+        this.capacity = capacity;
+        this.residualCapacity = new double[capacity.length];
+        this.reverse = reverse;
+        this.reached = new int[V];
+        this.stack = new int[V];
+    }
+
+    // remove all flow
+    void reset() {
+        System.arraycopy(capacity, 0, residualCapacity, 0, capacity.length);
+    }
+
+    // tail vertex of arc a
+    int tail(int a) {
+        return head[reverse[a]];
+    }
+
+    // vertices not reachable from s in the residual network, without the contracted vertices
+    VertexSet minCutSink(int s) {
+        markReachable(s);
+
+        VertexSet minCutSink = new VertexSet(V);
+        for (int v = 0; v < V; v++) {
+            if (reached[v] != epoch && !contractedVertices.contains(v)) {
+                minCutSink.add(v);
+            }
+        }
+        return minCutSink;
+    }
+
+    // reached[v] = epoch for the vertices reachable from s along arcs with residual capacity.
+    // Iterative, and the stack and the reached array are reused, so nothing is cleared per call
+    private void markReachable(int s) {
+        if (++epoch == 0) {
+            Arrays.fill(reached, 0);
+            epoch = 1;
+        }
+        int top = 0;
+        reached[s] = epoch;
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[--top];
+            for (int a = first[v]; a < first[v + 1]; a++) {
+                int to = head[a];
+                if (residualCapacity[a] > epsilon && reached[to] != epoch) {
+                    reached[to] = epoch;
+                    stack[top++] = to;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package helpermethods;
+
+import graphpackage.CSRDigraph;
+
+// Linear-time check that a StrongComponents result really is the strong component partition of G.
+// Two facts together certify it: every component is strongly connected (from its first vertex a
+// forward and a backward search inside the component reach all of it), and the condensation is
+// a DAG (so no two components could be merged into a larger strongly connected set).
+// Takes O(V + E) time and O(V) extra space, so it is cheap enough for assert on large graphs.
+public class SCCCertificate {
+
+    private SCCCertificate() { }
+
+    public static boolean check(CSRDigraph G, StrongComponents scc) {
+        int V = G.V();
+        int count = scc.count();
+
+        // the member array holds every vertex once, under the right component
+        boolean[] listed = new boolean[V];
+        int members = 0;
+        for (int i = 0; i < count; i++) {
+            if (scc.size(i) <= 0) return false;
+            for (int j = scc.componentBegin(i); j < scc.componentEnd(i); j++) {
+                int v = scc.member(j);
+                if (v < 0 || v >= V || listed[v] || scc.id(v) != i) return false;
+                listed[v] = true;
+                members++;
+            }
+        }
+        if (members != V) return false;
+
+        // every component is strongly connected
+        int[] forwardMark = new int[V];
+        int[] backwardMark = new int[V];
+        int[] queue = new int[V];
+        for (int i = 0; i < count; i++) {
+            int s = scc.member(scc.componentBegin(i));
+            if (reached(G, scc, s, i, forwardMark, queue, true) != scc.size(i)) return false;
+            if (reached(G, scc, s, i, backwardMark, queue, false) != scc.size(i)) return false;
+        }
+
+        // the condensation is acyclic: Kahn's algorithm removes every component
+        int[] inDegree = new int[count];
+        for (int e = 0; e < G.E(); e++) {
+            int c = scc.id(G.to(e));
+            if (scc.id(G.from(e)) != c) inDegree[c]++;
+        }
+        int qHead = 0, qTail = 0;
+        for (int i = 0; i < count; i++) {
+            if (inDegree[i] == 0) queue[qTail++] = i;
+        }
+        while (qHead < qTail) {
+            int c = queue[qHead++];
+            for (int j = scc.componentBegin(c); j < scc.componentEnd(c); j++) {
+                int v = scc.member(j);
+                for (int e = G.begin(v); e < G.end(v); e++) {
+                    int d = scc.id(G.to(e));
+                    if (d != c && --inDegree[d] == 0) queue[qTail++] = d;
+                }
+            }
+        }
+        return qTail == count;
+    }
+
+    // number of vertices of component c reached from s along edges inside c (forward or backward)
+    private static int reached(CSRDigraph G, StrongComponents scc, int s, int c, int[] mark, int[] queue, boolean forward) {
+        int stamp = c + 1;
+        int qHead = 0, qTail = 0;
+        mark[s] = stamp;
+        queue[qTail++] = s;
+        while (qHead < qTail) {
+            int v = queue[qHead++];
+            int begin = forward ? G.begin(v) : G.inBegin(v);
+            int end = forward ? G.end(v) : G.inEnd(v);
+            for (int i = begin; i < end; i++) {
+                int w = forward ? G.to(i) : G.from(G.inEdge(i));
+                if (mark[w] != stamp && scc.id(w) == c) {
+                    mark[w] = stamp;
+                    queue[qTail++] = w;
+                }
+            }
+        }
+        return qTail;
+    }
+}
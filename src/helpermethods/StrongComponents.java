@@ -0,0 +1,37 @@
+package helpermethods;
+
+import java.util.Set;
+
+// Common interface of the strong component algorithms. Component ids are 0 .. count()-1 and
+// the vertices of component i are member(j) for componentBegin(i) <= j < componentEnd(i),
+// in increasing order. Different algorithms give the same partition but may number it differently.
+public interface StrongComponents {
+
+    // number of strong components
+    int count();
+
+    // id of the strong component containing v
+    int id(int v);
+
+    // are v and w in the same strong component?
+    default boolean stronglyConnected(int v, int w) {
+        return id(v) == id(w);
+    }
+
+    // position of the first vertex of component i in the member array
+    int componentBegin(int i);
+
+    // one past the position of the last vertex of component i
+    int componentEnd(int i);
+
+    // vertex at position j of the member array
+    int member(int j);
+
+    // number of vertices in component i
+    default int size(int i) {
+        return componentEnd(i) - componentBegin(i);
+    }
+
+    // vertices of component i, empty if there is no such component
+    Set<Integer> getVerticesInSCC(int i);
+}
@@ -2,15 +2,15 @@ package helpermethods;
 /******************************************************************************
  *  Compilation:  javac TransitiveClosure.java
  *  Execution:    java TransitiveClosure filename.txt
- *  Dependencies: Digraph.java DepthFirstDirectedPaths.java In.java StdOut.java
+ *  Dependencies: CSRDigraph.java GabowSCC.java In.java
  *  Data files:   https://algs4.cs.princeton.edu/42digraph/tinyDG.txt
  *
  *  Compute transitive closure of a digraph and support
  *  reachability queries.
  *
- *  Preprocessing time: O(V(E + V)) time.
+ *  Preprocessing time: O(V + E + C(C + E) / 64) for C strong components.
  *  Query time: O(1).
- *  Space: O(V^2).
+ *  Space: O(V + C^2 / 64) words.
  *
  *  % java TransitiveClosure tinyDG.txt
  *         0  1  2  3  4  5  6  7  8  9 10 11 12
@@ -31,18 +31,25 @@ package helpermethods;
  *
  ******************************************************************************/
 
+import graphpackage.CSRDigraph;
 import graphpackage.EdgeWeightedDigraph;
 
 /**
  *  The {@code TransitiveClosure} class represents a data type for
  *  computing the transitive closure of a digraph.
  *  <p>
- *  This implementation runs depth-first search from each vertex.
- *  The constructor takes &Theta;(<em>V</em>(<em>V</em> + <em>E</em>))
- *  in the worst case, where <em>V</em> is the number of vertices and
+ *  This implementation works on the strong components of the digraph
+ *  (two vertices of the same component reach the same vertices) and computes
+ *  the reachability of 64 source components at a time: one pass over the
+ *  condensation DAG in topological order propagates a {@code long} mask
+ *  per component, with one bit for each of the 64 sources that reach it.
+ *  With <em>C</em> strong components, the constructor takes
+ *  &Theta;(<em>V</em> + <em>E</em> + <em>C</em>(<em>C</em> + <em>E</em>)/64)
+ *  time in the worst case, where <em>V</em> is the number of vertices and
  *  <em>E</em> is the number of edges.
  *  Each instance method takes &Theta;(1) time.
- *  It uses &Theta;(<em>V</em><sup>2</sup>) extra space (not including the digraph).
+ *  It uses &Theta;(<em>V</em> + <em>C</em><sup>2</sup>/64) words of extra space
+ *  (not including the digraph).
  *  <p>
  *  For large digraphs, you may want to consider a more sophisticated algorithm.
  *  <a href = "http://www.cs.hut.fi/~enu/thesis.html">Nuutila</a> proposes two
@@ -57,16 +64,51 @@ import graphpackage.EdgeWeightedDigraph;
  *  @author Kevin Wayne
  */
 public class TransitiveClosure {
-    private DirectedDFS[] tc;  // tc[v] = reachable from v
+    private int[] id;           // id[v] = strong component of v
+    private long[][] reachedBy; // bit (c & 63) of reachedBy[c >>> 6][d] = is component d reachable from component c?
 
     /**
      * Computes the transitive closure of the digraph {@code G}.
      * @param G the digraph
      */
     public TransitiveClosure(EdgeWeightedDigraph G) {
-        tc = new DirectedDFS[G.V()];
-        for (int v = 0; v < G.V(); v++)
-            tc[v] = new DirectedDFS(G, v);
+        this(new CSRDigraph(G));
+    }
+
+    /**
+     * Computes the transitive closure of the CSR digraph {@code G}.
+     * @param G the digraph
+     */
+    public TransitiveClosure(CSRDigraph G) {
+        GabowSCC scc = new GabowSCC(G);
+        int V = G.V();
+        int C = scc.count();
+        id = new int[V];
+        for (int v = 0; v < V; v++)
+            id[v] = scc.id(v);
+
+        // GabowSCC numbers the components in reverse topological order (every edge between two
+        // components goes to a smaller id), so decreasing ids are a topological order of the DAG
+        reachedBy = new long[(C + 63) >>> 6][];
+        for (int batch = 0; batch < reachedBy.length; batch++) {
+            int lo = batch << 6;
+            int hi = Math.min(C, lo + 64);
+            long[] mask = new long[C];
+            for (int c = lo; c < hi; c++)
+                mask[c] = 1L << (c - lo);
+            // components above hi come before every source of this batch, so nothing reaches them
+            for (int c = hi - 1; c >= 0; c--) {
+                long m = mask[c];
+                if (m == 0) continue;
+                for (int j = scc.componentBegin(c); j < scc.componentEnd(c); j++) {
+                    int v = scc.member(j);
+                    for (int i = G.begin(v); i < G.end(v); i++) {
+                        mask[id[G.to(i)]] |= m;
+                    }
+                }
+            }
+            reachedBy[batch] = mask;
+        }
     }
 
     /**
@@ -81,12 +123,13 @@ public class TransitiveClosure {
     public boolean reachable(int v, int w) {
         validateVertex(v);
         validateVertex(w);
-        return tc[v].marked(w);
+        int c = id[v];
+        return (reachedBy[c >>> 6][id[w]] & (1L << (c & 63))) != 0;
     }
 
     // throw an IllegalArgumentException unless {@code 0 <= v < V}
     private void validateVertex(int v) {
-        int V = tc.length;
+        int V = id.length;
         if (v < 0 || v >= V)
             throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
     }
@@ -1,15 +1,24 @@
 package mainpackage;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import graphpackage.CSRDigraph;
 import graphpackage.DirectedEdge;
 import graphpackage.EdgeWeightedDigraph;
+import helpermethods.ArborescencePacking;
+import helpermethods.BestCut;
 import helpermethods.ContractedG;
+import helpermethods.FlowEngine;
+import helpermethods.HaoOrlin;
 import helpermethods.In;
 import helpermethods.MinCut;
 import helpermethods.MinCutBruteForce;
+import helpermethods.MinCutResult;
 import helpermethods.MinCutResultBruteForce;
 
 public class Main {
@@ -23,6 +32,12 @@ public class Main {
         In in = new In("1. n=8 - m=25.txt");
         EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
         boolean bruteForce = false;
+        boolean haoOrlin = false;                 // exact rooted connectivity of G in one push-relabel run, for reference
+        FlowEngine flowEngine = FlowEngine.AUTO;  // force FORD_FULKERSON, DINIC or PUSH_RELABEL for benchmarking
+        boolean parallel = false;                 // run the contraction, Lemma 5 and the SCCs of Lemma 8 on all cores
+        boolean concurrent = false;               // run Lemma 5, Lemma 8 and Lemma 7 at the same time
+        boolean compact = false;                  // drop the contracted vertices from the contracted graph
+        boolean packing = false;                  // integer capacities: pack arborescences instead of Lemma 5, 8 and 7 (cuts of value 0 left out as there)
         long startTime;
         long endTime;
         int root, k1, k2;
@@ -82,55 +97,61 @@ public class Main {
             }
         }
 
+        // Hao-Orlin
+        if (haoOrlin) {
+            MinCutResult exact = new HaoOrlin(G).rootedConnectivity(root);
+            System.out.println("Rooted connectivity of G from " + root + ": " + exact.getMinCutValue() + " and execution time is: " + exact.getElapsedNanos() / 1e6 + "ms");
+        }
+
         startTime = System.nanoTime();
-        Map<String, Object> edgeConnectivity = Theorem1(G, root, k1, k2);
+        MinCutResult edgeConnectivity = concurrent ? Theorem1Concurrent(G, root, k1, k2, flowEngine, parallel, compact, packing) : Theorem1(G, root, k1, k2, flowEngine, parallel, compact, packing);
         endTime = System.nanoTime();
 
-        System.out.println("The minimal r-cut value after Theorem 1 execution is: " + edgeConnectivity.get("lamda") + " and sink component: " + edgeConnectivity.get("sink"));
+        System.out.println("The minimal r-cut value after Theorem 1 execution is: " + edgeConnectivity.getMinCutValue() + " and sink component: " + edgeConnectivity.sinkToString());
         System.out.println("Execution time of Theorem 1: %.3f "  + (endTime - startTime) / 1e6 + "ms");
     }
 
-    private static Map<String, Object> Theorem1(EdgeWeightedDigraph G, int root, int k1, int k2) {
-        double U = G.maxCapacity();
-        int sinkSize = (int) G.V() / k1;
-
+    // With compact the phases run on the root and the vertices that are not contracted only,
+    // renumbered densely; the returned sink uses the vertex ids of G either way.
+    // With packing and integer capacities the contracted graph goes to ArborescencePacking instead of the three phases.
+    private static MinCutResult Theorem1(EdgeWeightedDigraph G, int root, int k1, int k2, FlowEngine flowEngine, boolean parallel, boolean compact, boolean packing) {
         // timer for methods
         long startTime;
         long endTime;
 
-        // contraction of original grapg G
-        ContractedG cg = new ContractedG(G);
-        EdgeWeightedDigraph contractedG = cg.computeContractedG(root, U, k2);        
+        Contraction c = new Contraction(G, root, k1, k2, flowEngine, parallel, compact);
+        ContractedG cg = c.cg;
+        CSRDigraph contractedG = c.contractedG;
+        MinCut minCut = c.minCut;
+        int r = c.r;
+        if (packing) {
+            MinCutResult packed = packArborescences(c);
+            if (packed != null) return packed;
+        }
 
-        // initialize minCut object with contracted Graph 
-        MinCut minCut = new MinCut(contractedG);
         double singletonMinCutValue, smallSinkMinCutValue, sampledValue;
         
         // ------------- min cut for singletons - Lemma 5 -------------
-        startTime = System.nanoTime();
-        Map<String, Object> singleton = minCut.rootedConnectivity(root);
-        endTime = System.nanoTime();
-        System.out.println("Execution time of Lemma 5: "  + (endTime - startTime) / 1e6 + "ms");
-        singletonMinCutValue = (double) singleton.get("lamda");  
+        MinCutResult singleton = parallel ? minCut.rootedConnectivityParallel(r, ForkJoinPool.commonPool()) : minCut.rootedConnectivity(r);
+        System.out.println("Execution time of Lemma 5: "  + singleton.getElapsedNanos() / 1e6 + "ms");
+        singletonMinCutValue = singleton.getMinCutValue();
 
         // ------------- min cut for small sink components - at most l vertices - Lemma 8 -------------
-        startTime = System.nanoTime();
-        Map<String, Object> smallSink = minCut.rootedConnectivityForSCCs(root, k2, U);
-        endTime = System.nanoTime();
-        System.out.println("Execution time of Lemma 8: "  + (endTime - startTime) / 1e6 + "ms");
-        smallSinkMinCutValue = (double) smallSink.get("lamda");
+        MinCutResult smallSink = minCut.rootedConnectivityForSCCs(r, k2, c.U);
+        System.out.println("Execution time of Lemma 8: "  + smallSink.getElapsedNanos() / 1e6 + "ms");
+        smallSinkMinCutValue = smallSink.getMinCutValue();
 
         // Skip Lemma 7 in case i have found the minimum cut which is 1
         if (singletonMinCutValue == 1 && singletonMinCutValue <= smallSinkMinCutValue) { 
-            return singleton;  
+            return cg.toOriginal(singleton);
         }else if (smallSinkMinCutValue == 1 && smallSinkMinCutValue <= singletonMinCutValue) {
-            return smallSink;
+            return cg.toOriginal(smallSink);
         }
         
         // ------------- min cut for sampled sink components - Lemma 7 -------------
         System.out.println("\n---------- Running Lemma 7 ----------");
-        Map<String, Object> finalSampledMinCut = new HashMap<>();
-        if (contractedG.V() < k1) {
+        MinCutResult finalSampledMinCut = MinCutResult.empty();
+        if (c.n < k1) {
             System.out.println("Warning: Contracted graph has less than k1 vertices."); 
             sampledValue = Double.POSITIVE_INFINITY;
         }else{
@@ -142,9 +163,9 @@ public class Main {
             for (int i = logk1; i <= logk2; i++) {
                 int kLow = (int) Math.pow(2, i);
                 int kHigh = (int) Math.pow(2, i+1);
-                Set<Integer> sampledVertices = cg.sampleVertexGenerator(root, sinkSize, contractedG);
-                Map<String, Object> sampledSink = minCut.rootedConnectivityForSampledVertices(root, kLow, kHigh, sampledVertices);
-                double currentValue = (double) sampledSink.get("lamda");
+                Set<Integer> sampledVertices = cg.sampleVertexGenerator(r, c.sinkSize, contractedG);
+                MinCutResult sampledSink = minCut.rootedConnectivityForSampledVertices(r, kLow, kHigh, sampledVertices);
+                double currentValue = sampledSink.getMinCutValue();
                 if (currentValue < sampledValue){
                     sampledValue = currentValue;
                     finalSampledMinCut = sampledSink;
@@ -153,14 +174,125 @@ public class Main {
             endTime = System.nanoTime();
             System.out.println("\nExecution time of Lemma 7: "  + (endTime - startTime) / 1e6 + "ms");
         }
-        double sampledMinCutValue = (double) finalSampledMinCut.get("lamda");
+        double sampledMinCutValue = finalSampledMinCut.getMinCutValue();
 
         if (singletonMinCutValue <= smallSinkMinCutValue && singletonMinCutValue <= sampledMinCutValue) {
-            return singleton;
+            return cg.toOriginal(singleton);
         }else if (smallSinkMinCutValue <= sampledMinCutValue) {
-            return smallSink;
+            return cg.toOriginal(smallSink);
         }else {
-            return finalSampledMinCut;
+            return cg.toOriginal(finalSampledMinCut);
+        }
+    }
+
+    // Theorem 1 with the three phases running at the same time on the contracted graph.
+    // The phases share the best cut found so far, so a flow of one phase stops as soon as it
+    // reaches a cut of another phase, and a cut of value 1 (the early exit of Theorem1) stops
+    // all of them. On equal values the cuts are preferred in the same order as Theorem1
+    // (Lemma 5, then Lemma 8, then Lemma 7). Without a cut of value 1 the result is the one of
+    // Theorem1 for the same samples; with one, a phase may stop before finding its own cut of
+    // value 1, or another phase may already have found a smaller cut.
+    private static MinCutResult Theorem1Concurrent(EdgeWeightedDigraph G, int root, int k1, int k2, FlowEngine flowEngine, boolean parallel, boolean compact, boolean packing) {
+        Contraction c = new Contraction(G, root, k1, k2, flowEngine, parallel, compact);
+        ContractedG cg = c.cg;
+        CSRDigraph contractedG = c.contractedG;
+        MinCut minCut = c.minCut;
+        int r = c.r;
+        if (packing) {
+            MinCutResult packed = packArborescences(c);
+            if (packed != null) return packed;
+        }
+
+        BestCut best = new BestCut(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // ------------- min cut for singletons - Lemma 5 -------------
+            Future<?> singleton = executor.submit(() -> {
+                MinCutResult result = parallel ? minCut.rootedConnectivityParallel(r, ForkJoinPool.commonPool(), best) : minCut.rootedConnectivity(r, best);
+                System.out.println("Execution time of Lemma 5: "  + result.getElapsedNanos() / 1e6 + "ms");
+            });
+
+            // ------------- min cut for small sink components - at most l vertices - Lemma 8 -------------
+            Future<?> smallSink = executor.submit(() -> {
+                MinCutResult result = minCut.rootedConnectivityForSCCs(r, k2, c.U);
+                best.offer(BestCut.LEMMA_8, 0, result.getMinCutValue(), result.getSink());
+                System.out.println("Execution time of Lemma 8: "  + result.getElapsedNanos() / 1e6 + "ms");
+            });
+
+            // ------------- min cut for sampled sink components - Lemma 7 -------------
+            Future<?> sampled = executor.submit(() -> {
+                if (c.n < k1) {
+                    System.out.println("Warning: Contracted graph has less than k1 vertices.");
+                    return;
+                }
+                long startTime = System.nanoTime();
+                int logk1 = (int) (Math.log(k1) / Math.log(2));
+                int logk2 = (int) (Math.log(k2) / Math.log(2));
+                for (int i = logk1; i <= logk2 && !best.isStopped(); i++) {
+                    int kLow = (int) Math.pow(2, i);
+                    int kHigh = (int) Math.pow(2, i+1);
+                    Set<Integer> sampledVertices = cg.sampleVertexGenerator(r, c.sinkSize, contractedG);
+                    minCut.rootedConnectivityForSampledVertices(r, kLow, kHigh, sampledVertices, best, i - logk1);
+                }
+                System.out.println("Execution time of Lemma 7: "  + (System.nanoTime() - startTime) / 1e6 + "ms");
+            });
+
+            singleton.get();
+            smallSink.get();
+            sampled.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Theorem 1 was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Theorem 1 phase failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        return cg.toOriginal(best.toResult());
+    }
+
+    // the setup both Theorem 1 variants share: the contraction of G, the root in the contracted
+    // graph and a MinCut on it with the chosen flow engine and SCC algorithm
+    private static class Contraction {
+        final double U;
+        final int n;            // vertices of G; Lemma 7 uses this count with or without compact, not contractedG.V()
+        final int sinkSize;     // vertices sampled per round of Lemma 7
+        final ContractedG cg;
+        final CSRDigraph contractedG;
+        final int r;            // the root in contractedG
+        final MinCut minCut;
+
+        Contraction(EdgeWeightedDigraph G, int root, int k1, int k2, FlowEngine flowEngine, boolean parallel, boolean compact) {
+            U = G.maxCapacity();
+            n = G.V();
+            sinkSize = n / k1;
+            cg = new ContractedG(G);
+            contractedG = contract(cg, root, U, k2, parallel, compact);
+            r = cg.compactVertex(root);
+            minCut = new MinCut(contractedG);
+            minCut.setFlowEngine(flowEngine);
+            if (parallel) minCut.setParallelSCC(ForkJoinPool.commonPool());
+        }
+    }
+
+    // contraction of G for Theorem 1, in CSR form for MinCut; on all cores with parallel
+    private static CSRDigraph contract(ContractedG cg, int root, double U, int k2, boolean parallel, boolean compact) {
+        if (parallel) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            return compact ? cg.computeCompactContractedG(root, U, k2, pool) : cg.computeContractedG(root, U, k2, pool);
+        }
+        return new CSRDigraph(compact ? cg.computeCompactContractedG(root, U, k2) : cg.computeContractedG(root, U, k2));
+    }
+
+    // rooted connectivity of the contraction with ArborescencePacking, null if its capacities are not integers.
+    // Exact on the contraction, unlike the sampling of Lemma 7; it pays off when the greedy packing reaches lamda (see ArborescencePacking)
+    private static MinCutResult packArborescences(Contraction c) {
+        if (!c.contractedG.hasIntegerCapacities()) {
+            System.out.println("Warning: arborescence packing needs integer capacities, running Lemma 5, 8 and 7 instead.");
+            return null;
         }
+        return c.cg.toOriginal(new ArborescencePacking(c.contractedG).rootedConnectivity(c.r));
     }
 }